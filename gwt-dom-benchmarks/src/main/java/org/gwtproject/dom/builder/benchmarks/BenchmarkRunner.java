@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar.
+ *
+ * <p>Behaves like the default JMH main class, but always attaches the {@link GCProfiler} so every
+ * run reports allocation next to throughput. All benchmarks declare the number of elements they
+ * build as their operations per invocation, so the reported ops/s is elements per second and
+ * {@code gc.alloc.rate.norm} is bytes allocated per element.
+ *
+ * <pre>
+ * java -jar gwt-dom-benchmarks/target/benchmarks.jar [JMH options] [benchmark regex]
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    Options options =
+        new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+
+  private BenchmarkRunner() {}
+}
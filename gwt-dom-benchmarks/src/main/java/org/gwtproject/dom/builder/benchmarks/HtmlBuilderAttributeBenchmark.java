@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.dom.builder.shared.HtmlBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlDivBuilder;
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures elements that carry many attributes, through trusted and generic setters. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlBuilderAttributeBenchmark {
+
+  /** Child elements built under the root. */
+  static final int CHILDREN = 500;
+
+  private final HtmlBuilderFactory factory = HtmlBuilderFactory.get();
+
+  /*
+   * Attribute values are computed up front so that the measured allocation
+   * is the builder's own.
+   */
+  private final String[] ids = new String[CHILDREN];
+  private final String[] names = new String[CHILDREN];
+  private final String[] labels = new String[CHILDREN];
+
+  @Setup
+  public void setUp() {
+    for (int i = 0; i < CHILDREN; i++) {
+      ids[i] = "item-" + i;
+      names[i] = "field" + i;
+      labels[i] = "Label & \"quoted\" " + i;
+    }
+  }
+
+  /** Typed attribute setters, which pass trusted names to {@code trustedAttribute}. */
+  @Benchmark
+  @OperationsPerInvocation(CHILDREN + 1)
+  public SafeHtml trustedAttributes() {
+    HtmlDivBuilder root = factory.createDivBuilder();
+    for (int i = 0; i < CHILDREN; i++) {
+      root.startTextInput()
+          .id(ids[i])
+          .className("field field-text")
+          .name(names[i])
+          .title(labels[i])
+          .value(names[i])
+          .maxLength(64)
+          .tabIndex(i)
+          .endInput();
+    }
+    return root.asSafeHtml();
+  }
+
+  /** Generic {@code attribute(name, value)} calls, which also escape the attribute name. */
+  @Benchmark
+  @OperationsPerInvocation(CHILDREN + 1)
+  public SafeHtml genericAttributes() {
+    HtmlDivBuilder root = factory.createDivBuilder();
+    for (int i = 0; i < CHILDREN; i++) {
+      root.startSpan()
+          .attribute("data-row", i)
+          .attribute("data-key", ids[i])
+          .attribute("data-label", labels[i])
+          .attribute("aria-label", names[i])
+          .attribute("role", "gridcell")
+          .endSpan();
+    }
+    return root.asSafeHtml();
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.dom.builder.shared.HtmlBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlSizedBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlTableBuilder;
+import org.gwtproject.dom.builder.shared.TableRowBuilder;
+import org.gwtproject.dom.builder.shared.TableSectionBuilder;
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the output buffer of the default {@link HtmlBuilderFactory}, which starts small and
+ * doubles as the table grows, with the buffers of an adaptive {@link HtmlSizedBuilderFactory}.
+ *
+ * <p>The adaptive factory learns the size of the table during warmup, so its buffer never has to
+ * grow. The difference shows up in {@code gc.alloc.rate.norm}: the default buffer allocates and
+ * copies roughly twice the final output on the way to its final size.
+ *
+ * <p>Like {@link HtmlBuilderFinishBenchmark}, one operation is one document rather than one
+ * element.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HtmlBuilderBufferSizingBenchmark {
+
+  /** Cells per row. */
+  static final int CELLS = 10;
+
+  /** Rows in the table. */
+  @Param({"100", "10000"})
+  public int rows;
+
+  private HtmlSizedBuilderFactory adaptive;
+
+  @Setup
+  public void createFactory() {
+    adaptive = new HtmlSizedBuilderFactory(0, true);
+  }
+
+  @Benchmark
+  public SafeHtml defaultBuffer() {
+    return render(HtmlBuilderFactory.get());
+  }
+
+  @Benchmark
+  public SafeHtml adaptiveBuffer() {
+    return render(adaptive);
+  }
+
+  private SafeHtml render(HtmlBuilderFactory factory) {
+    HtmlTableBuilder table = factory.createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    for (int r = 0; r < rows; r++) {
+      TableRowBuilder tr = tbody.startTR();
+      for (int c = 0; c < CELLS; c++) {
+        tr.startTD().text("cell").endTD();
+      }
+      tr.endTR();
+    }
+    return table.asSafeHtml();
+  }
+}
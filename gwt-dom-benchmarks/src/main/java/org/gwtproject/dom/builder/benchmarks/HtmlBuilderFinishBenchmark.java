@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.dom.builder.shared.HtmlBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlTableBuilder;
+import org.gwtproject.dom.builder.shared.TableRowBuilder;
+import org.gwtproject.dom.builder.shared.TableSectionBuilder;
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code asSafeHtml()} on its own: closing the open tags and turning the buffer into a
+ * {@link SafeHtml}.
+ *
+ * <p>Unlike the other benchmarks, one operation is one document rather than one element. The table
+ * is built before each invocation, so invocation level setup applies. Keep the
+ * documents large enough that the setup overhead JMH warns about is irrelevant.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HtmlBuilderFinishBenchmark {
+
+  /** Cells per row. */
+  static final int CELLS = 10;
+
+  /** Rows in the table that gets finished. */
+  @Param({"100", "10000"})
+  public int rows;
+
+  private HtmlTableBuilder table;
+
+  @Setup(Level.Invocation)
+  public void buildTable() {
+    table = HtmlBuilderFactory.get().createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    for (int r = 0; r < rows; r++) {
+      TableRowBuilder tr = tbody.startTR();
+      for (int c = 0; c < CELLS; c++) {
+        tr.startTD().text("cell").endTD();
+      }
+      tr.endTR();
+    }
+    // Leave the tbody and table open, asSafeHtml() ends them.
+  }
+
+  @Benchmark
+  public SafeHtml asSafeHtml() {
+    return table.asSafeHtml();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.dom.builder.shared.HtmlBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlTableBuilder;
+import org.gwtproject.dom.builder.shared.TableCellBuilder;
+import org.gwtproject.dom.builder.shared.TableRowBuilder;
+import org.gwtproject.dom.builder.shared.TableSectionBuilder;
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how server rendering through the shared {@link HtmlBuilderFactory} scales with the
+ * number of threads.
+ *
+ * <p>Every thread renders the same table through the one factory instance, including custom style
+ * property names that go through the shared style name cache. The reported ops/s is the total
+ * across all threads, so with no contention it grows linearly from {@link #oneThread()} to {@link
+ * #allCores()}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlBuilderScalingBenchmark {
+
+  /** Rows of the rendered table. */
+  static final int ROWS = 100;
+
+  /** Elements built per render: the table, its body, the rows and their two cells. */
+  static final int TABLE_ELEMENTS = 2 + ROWS * 3;
+
+  /** Shared by all benchmark threads. */
+  private final HtmlBuilderFactory factory = HtmlBuilderFactory.get();
+
+  @Benchmark
+  @Threads(1)
+  @OperationsPerInvocation(TABLE_ELEMENTS)
+  public SafeHtml oneThread() {
+    return render();
+  }
+
+  @Benchmark
+  @Threads(2)
+  @OperationsPerInvocation(TABLE_ELEMENTS)
+  public SafeHtml twoThreads() {
+    return render();
+  }
+
+  @Benchmark
+  @Threads(4)
+  @OperationsPerInvocation(TABLE_ELEMENTS)
+  public SafeHtml fourThreads() {
+    return render();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  @OperationsPerInvocation(TABLE_ELEMENTS)
+  public SafeHtml allCores() {
+    return render();
+  }
+
+  private SafeHtml render() {
+    HtmlTableBuilder table = factory.createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    for (int r = 0; r < ROWS; r++) {
+      TableRowBuilder tr = tbody.startTR();
+      tr.style().trustedProperty("columnGap", "1px").endStyle();
+      tr.startTD().className("name").text("Row < " + r).endTD();
+      TableCellBuilder td = tr.startTD();
+      td.style().trustedProperty("rowGap", "2px").endStyle();
+      td.endTD();
+      tr.endTR();
+    }
+    tbody.endTBody();
+    table.endTable();
+    return table.asSafeHtml();
+  }
+}
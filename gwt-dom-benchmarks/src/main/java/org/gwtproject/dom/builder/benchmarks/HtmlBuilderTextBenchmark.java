@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.dom.builder.shared.HtmlBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlDivBuilder;
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures text content, which is escaped by {@code HtmlBuilderImpl.doTextImpl}. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlBuilderTextBenchmark {
+
+  /** Child elements built under the root. */
+  static final int CHILDREN = 500;
+
+  /** A typical grid cell value. */
+  private static final String SHORT_PLAIN = "1,234.56";
+
+  /** A short value that needs escaping. */
+  private static final String SHORT_ESCAPED = "R&D <beta>";
+
+  /** A paragraph without special characters, repeated to form a long text block. */
+  private static final String PARAGRAPH =
+      "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor"
+          + " incididunt ut labore et dolore magna aliqua. ";
+
+  /** A paragraph with a few special characters, repeated to form a long text block. */
+  private static final String PARAGRAPH_ESCAPED =
+      "Lorem ipsum \"dolor\" sit amet, consectetur & adipiscing elit, sed do <eiusmod> tempor"
+          + " incididunt ut labore et dolore magna aliqua. ";
+
+  private final HtmlBuilderFactory factory = HtmlBuilderFactory.get();
+
+  /** The kind of text put into each element. */
+  @Param({"shortPlain", "shortEscaped", "longPlain", "longEscaped"})
+  public String text;
+
+  private String value;
+
+  @Setup
+  public void setUp() {
+    switch (text) {
+      case "shortPlain":
+        value = SHORT_PLAIN;
+        break;
+      case "shortEscaped":
+        value = SHORT_ESCAPED;
+        break;
+      case "longPlain":
+        value = repeat(PARAGRAPH, 20);
+        break;
+      case "longEscaped":
+        value = repeat(PARAGRAPH_ESCAPED, 20);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown text kind: " + text);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CHILDREN + 1)
+  public SafeHtml text() {
+    HtmlDivBuilder root = factory.createDivBuilder();
+    for (int i = 0; i < CHILDREN; i++) {
+      root.startSpan().text(value).endSpan();
+    }
+    return root.asSafeHtml();
+  }
+
+  private static String repeat(String s, int count) {
+    StringBuilder sb = new StringBuilder(s.length() * count);
+    for (int i = 0; i < count; i++) {
+      sb.append(s);
+    }
+    return sb.toString();
+  }
+}
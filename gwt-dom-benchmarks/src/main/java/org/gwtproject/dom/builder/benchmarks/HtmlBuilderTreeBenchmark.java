@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.dom.builder.shared.DivBuilder;
+import org.gwtproject.dom.builder.shared.HtmlBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlDivBuilder;
+import org.gwtproject.dom.builder.shared.HtmlPooledBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlTableBuilder;
+import org.gwtproject.dom.builder.shared.TableRowBuilder;
+import org.gwtproject.dom.builder.shared.TableSectionBuilder;
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the element start/end state machine of {@code HtmlBuilderImpl} on deep and wide trees.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HtmlBuilderTreeBenchmark {
+
+  /** Nesting depth of {@link #deepTree()}. */
+  static final int DEPTH = 256;
+
+  /** Rows of {@link #wideTable()}. */
+  static final int ROWS = 1000;
+
+  /** Cells per row of {@link #wideTable()}. */
+  static final int CELLS = 10;
+
+  /** Elements built by {@link #wideTable()}: the table, its body, the rows and their cells. */
+  static final int TABLE_ELEMENTS = 2 + ROWS * (CELLS + 1);
+
+  private final HtmlBuilderFactory factory = HtmlBuilderFactory.get();
+
+  /** Confined to the benchmark thread by the thread scope of this state. */
+  private final HtmlPooledBuilderFactory pooledFactory = new HtmlPooledBuilderFactory();
+
+  /** A chain of nested divs, which keeps the builder stack deep. */
+  @Benchmark
+  @OperationsPerInvocation(DEPTH)
+  public SafeHtml deepTree() {
+    HtmlDivBuilder root = factory.createDivBuilder();
+    DivBuilder current = root;
+    for (int i = 1; i < DEPTH; i++) {
+      current = current.startDiv();
+    }
+    return root.asSafeHtml();
+  }
+
+  /** A table with many short rows, which keeps the builder stack shallow but busy. */
+  @Benchmark
+  @OperationsPerInvocation(TABLE_ELEMENTS)
+  public SafeHtml wideTable() {
+    return buildTable(factory);
+  }
+
+  /** {@link #wideTable()} with builders reused through {@link HtmlPooledBuilderFactory}. */
+  @Benchmark
+  @OperationsPerInvocation(TABLE_ELEMENTS)
+  public SafeHtml wideTablePooled() {
+    return buildTable(pooledFactory);
+  }
+
+  private SafeHtml buildTable(HtmlBuilderFactory tableFactory) {
+    HtmlTableBuilder table = tableFactory.createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    for (int r = 0; r < ROWS; r++) {
+      TableRowBuilder tr = tbody.startTR();
+      for (int c = 0; c < CELLS; c++) {
+        tr.startTD().endTD();
+      }
+      tr.endTR();
+    }
+    tbody.endTBody();
+    table.endTable();
+    return table.asSafeHtml();
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.dom.builder.shared.DivBuilder;
+import org.gwtproject.dom.builder.shared.HtmlBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlDivBuilder;
+import org.gwtproject.dom.style.shared.Display;
+import org.gwtproject.dom.style.shared.Position;
+import org.gwtproject.dom.style.shared.Unit;
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures chains of style properties through {@code HtmlStylesBuilder}. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlStylesBuilderBenchmark {
+
+  /** Child elements built under the root. */
+  static final int CHILDREN = 500;
+
+  private final HtmlBuilderFactory factory = HtmlBuilderFactory.get();
+
+  /** Numeric and enum valued properties with a fixed name. */
+  @Benchmark
+  @OperationsPerInvocation(CHILDREN + 1)
+  public SafeHtml typedProperties() {
+    HtmlDivBuilder root = factory.createDivBuilder();
+    for (int i = 0; i < CHILDREN; i++) {
+      DivBuilder div = root.startDiv();
+      div.style()
+          .position(Position.ABSOLUTE)
+          .left(i, Unit.PX)
+          .top(i * 2, Unit.PX)
+          .width(120, Unit.PX)
+          .height(1.5, Unit.EM)
+          .display(Display.INLINE_BLOCK)
+          .zIndex(i)
+          .endStyle();
+      div.endDiv();
+    }
+    return root.asSafeHtml();
+  }
+
+  /** Properties given by camelCase name, which go through the hyphenation cache. */
+  @Benchmark
+  @OperationsPerInvocation(CHILDREN + 1)
+  public SafeHtml namedProperties() {
+    HtmlDivBuilder root = factory.createDivBuilder();
+    for (int i = 0; i < CHILDREN; i++) {
+      DivBuilder div = root.startDiv();
+      div.style()
+          .trustedProperty("backgroundColor", "#fafafa")
+          .trustedProperty("borderBottomWidth", 1, Unit.PX)
+          .trustedProperty("textOverflow", "ellipsis")
+          .trustedProperty("whiteSpace", "nowrap")
+          .endStyle();
+      div.endDiv();
+    }
+    return root.asSafeHtml();
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.dom.builder.shared.HtmlBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlTableBuilder;
+import org.gwtproject.dom.builder.shared.ParallelTableSectionRenderer;
+import org.gwtproject.dom.builder.shared.TableRowBuilder;
+import org.gwtproject.dom.builder.shared.TableSectionBuilder;
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares rendering the rows of a large table one after the other with rendering them on the
+ * common pool through a {@link ParallelTableSectionRenderer}.
+ *
+ * <p>Both produce the same HTML. The speedup of the parallel render is bounded by the number of
+ * cores, and by the final copy of the rendered ranges into the table, which is sequential.
+ *
+ * <p>Like {@link HtmlBuilderFinishBenchmark}, one operation is one document rather than one
+ * element.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlTableParallelRenderingBenchmark {
+
+  /** Cells per row. */
+  static final int CELLS = 10;
+
+  private static final ParallelTableSectionRenderer.RowRenderer ROW =
+      (tr, row) -> {
+        for (int c = 0; c < CELLS; c++) {
+          tr.startTD().className("c" + c).text("cell " + row + "<" + c + ">").endTD();
+        }
+      };
+
+  /** Rows in the table. */
+  @Param({"10000", "100000"})
+  public int rows;
+
+  private final ParallelTableSectionRenderer renderer = new ParallelTableSectionRenderer();
+
+  @Benchmark
+  public SafeHtml sequential() {
+    HtmlTableBuilder table = HtmlBuilderFactory.get().createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    for (int r = 0; r < rows; r++) {
+      TableRowBuilder tr = tbody.startTR();
+      ROW.render(tr, r);
+      tr.endTR();
+    }
+    return table.asSafeHtml();
+  }
+
+  @Benchmark
+  public SafeHtml parallel() {
+    HtmlTableBuilder table = HtmlBuilderFactory.get().createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    renderer.render(tbody, rows, ROW);
+    return table.asSafeHtml();
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.dom.builder.shared.ElementTemplate;
+import org.gwtproject.dom.builder.shared.HtmlBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlTableBuilder;
+import org.gwtproject.dom.builder.shared.TableCellBuilder;
+import org.gwtproject.dom.builder.shared.TableRowBuilder;
+import org.gwtproject.dom.builder.shared.TableSectionBuilder;
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Compares building the same row skeleton with the builder and with an {@link ElementTemplate}. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HtmlTemplateBenchmark {
+
+  /** Rows of each table. */
+  static final int ROWS = 1000;
+
+  private final HtmlBuilderFactory factory = HtmlBuilderFactory.get();
+
+  private ElementTemplate rowTemplate;
+
+  /** The hole values of each row: id, name and status. */
+  private String[][] rowValues;
+
+  @Setup
+  public void setUp() {
+    rowTemplate =
+        ElementTemplate.record()
+            .start("tr")
+            .attribute("class", "row")
+            .attributeHole("id", "id")
+            .start("td")
+            .textHole("name")
+            .end()
+            .start("td")
+            .trustedStyleProperty("textAlign", "right")
+            .textHole("status")
+            .end()
+            .compile();
+
+    rowValues = new String[ROWS][];
+    for (int r = 0; r < ROWS; r++) {
+      rowValues[r] = new String[] {"row" + r, "Item " + r, r % 2 == 0 ? "open" : "closed"};
+    }
+  }
+
+  /** Every row is built element by element. */
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public SafeHtml builder() {
+    HtmlTableBuilder table = factory.createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    for (String[] values : rowValues) {
+      TableRowBuilder tr = tbody.startTR().className("row").id(values[0]);
+      tr.startTD().text(values[1]).endTD();
+      TableCellBuilder td = tr.startTD();
+      td.style().trustedProperty("textAlign", "right").endStyle();
+      td.text(values[2]).endTD();
+      tr.endTR();
+    }
+    tbody.endTBody();
+    table.endTable();
+    return table.asSafeHtml();
+  }
+
+  /** Every row is rendered from the compiled template. */
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public SafeHtml template() {
+    HtmlTableBuilder table = factory.createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    for (String[] values : rowValues) {
+      rowTemplate.appendTo(tbody, values);
+    }
+    tbody.endTBody();
+    table.endTable();
+    return table.asSafeHtml();
+  }
+}
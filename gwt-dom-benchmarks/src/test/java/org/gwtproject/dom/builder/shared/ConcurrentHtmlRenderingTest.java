@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Renders HTML from many threads at once through the shared {@link HtmlBuilderFactory}, and checks
+ * that every thread produces the same output as a single-threaded render.
+ *
+ * <p>The renders use more custom style property names than the style name cache of {@link
+ * HtmlStylesBuilder} holds, so threads keep replacing each other's cache entries, and they all
+ * render the same {@link ElementTemplate}. A shared {@link HtmlFragmentCache} that is too small for
+ * all renders is checked the same way.
+ */
+public class ConcurrentHtmlRenderingTest {
+
+  /** The number of distinct custom style property names. */
+  private static final int STYLE_NAMES = 200;
+
+  private static final int ITERATIONS = 2000;
+
+  private static final ElementTemplate TEMPLATE =
+      ElementTemplate.record()
+          .start("li")
+          .attributeHole("id", "id")
+          .textHole("name")
+          .end()
+          .compile();
+
+  @Test
+  public void testConcurrentRendering() throws Exception {
+    int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    String[] expected = new String[STYLE_NAMES];
+    for (int i = 0; i < STYLE_NAMES; i++) {
+      expected[i] = render(i);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch startGate = new CountDownLatch(1);
+      List<Future<Void>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int offset = t * 7;
+        Callable<Void> task =
+            () -> {
+              startGate.await();
+              for (int i = 0; i < ITERATIONS; i++) {
+                int variant = (offset + i) % STYLE_NAMES;
+                assertEquals(expected[variant], render(variant));
+              }
+              return null;
+            };
+        results.add(executor.submit(task));
+      }
+      startGate.countDown();
+      for (Future<Void> result : results) {
+        // Rethrows the first assertion error of each thread.
+        result.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSharedFragmentCache() throws Exception {
+    // Smaller than the number of keys, so threads keep evicting each other's fragments.
+    HtmlFragmentCache cache = new HtmlFragmentCache(STYLE_NAMES / 4);
+    int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Void>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int offset = t * 7;
+        Callable<Void> task =
+            () -> {
+              for (int i = 0; i < ITERATIONS; i++) {
+                int variant = (offset + i) % STYLE_NAMES;
+                String html = cache.get(TEMPLATE, "id" + variant, "name" + variant).asString();
+                assertEquals("<li id=\"id" + variant + "\">name" + variant + "</li>", html);
+              }
+              return null;
+            };
+        results.add(executor.submit(task));
+      }
+      for (Future<Void> result : results) {
+        result.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals((long) threads * ITERATIONS, cache.getHitCount() + cache.getMissCount());
+    // A miss that loses the race to store its fragment does not insert it.
+    assertTrue(cache.getEvictionCount() <= cache.getMissCount() - cache.size());
+    assertTrue(cache.size() <= cache.getMaxEntries());
+  }
+
+  @Test
+  public void testSharedFactoryIsSingleton() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<ElementBuilderFactory>> results = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        results.add(executor.submit(ElementBuilderFactory::get));
+      }
+      for (Future<ElementBuilderFactory> result : results) {
+        assertSame(HtmlBuilderFactory.get(), result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Render a small list that uses a custom style property name and the shared template. */
+  private static String render(int variant) {
+    HtmlUListBuilder ul = HtmlBuilderFactory.get().createUListBuilder();
+    ul.id("list" + variant);
+    ul.style().trustedProperty("customProperty" + variant + "Name", "value" + variant).endStyle();
+    for (int i = 0; i < 3; i++) {
+      LIBuilder li = ul.startLI().className("item");
+      li.text("Item " + variant + " < " + i);
+      li.endLI();
+    }
+    TEMPLATE.appendTo(ul, "templated" + variant, "Name & " + variant);
+    return ul.asSafeHtml().asString();
+  }
+}
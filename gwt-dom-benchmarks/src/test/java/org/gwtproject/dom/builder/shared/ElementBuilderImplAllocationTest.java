@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import org.gwtproject.dom.client.DivElement;
+import org.gwtproject.dom.client.Element;
+import org.gwtproject.dom.client.SpanElement;
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.junit.Test;
+
+/**
+ * Checks that the element stack and tag name validation of {@link ElementBuilderImpl} do not
+ * allocate once the stack has grown to the depth of the built tree.
+ *
+ * <p>Allocation is measured with the per-thread allocation counter of the HotSpot {@code
+ * ThreadMXBean}, so this test only runs on the JVM.
+ */
+public class ElementBuilderImplAllocationTest {
+
+  /** An implementation that only maintains the builder state, without producing output. */
+  private static class StateOnlyBuilderImpl extends ElementBuilderImpl {
+
+    private final HtmlBuilderImpl owner = new HtmlBuilderImpl();
+    private final HtmlDivBuilder divBuilder = new HtmlDivBuilder(owner);
+    private final HtmlSpanBuilder spanBuilder = new HtmlSpanBuilder(owner);
+
+    @Override
+    public StylesBuilder style() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void doCloseStartTagImpl() {}
+
+    @Override
+    protected void doCloseStyleAttributeImpl() {}
+
+    @Override
+    protected void doEndStartTagImpl() {}
+
+    @Override
+    protected void doEndTagImpl(String tagName) {}
+
+    @Override
+    protected Element doFinishImpl() {
+      return null;
+    }
+
+    @Override
+    protected void doHtmlImpl(SafeHtml html) {}
+
+    @Override
+    protected void doOpenStyleImpl() {}
+
+    @Override
+    protected void doTextImpl(String text) {}
+
+    /** Build a root div with the specified number of rows of nested spans. */
+    void build(int rows, int depth) {
+      onStart(DivElement.TAG, divBuilder);
+      for (int r = 0; r < rows; r++) {
+        for (int d = 0; d < depth; d++) {
+          onStart(SpanElement.TAG, spanBuilder);
+        }
+        for (int d = 0; d < depth; d++) {
+          end(SpanElement.TAG);
+        }
+      }
+      end(DivElement.TAG);
+    }
+  }
+
+  @Test
+  public void testSteadyStateStartEndDoesNotAllocate() {
+    com.sun.management.ThreadMXBean threads = threadMXBean();
+    assumeTrue(threads != null && threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    StateOnlyBuilderImpl impl = new StateOnlyBuilderImpl();
+
+    // Grow the stack to its final depth, and let the JIT settle.
+    for (int i = 0; i < 1000; i++) {
+      impl.reset();
+      impl.build(100, 40);
+    }
+
+    long threadId = Thread.currentThread().getId();
+    long allocated = Long.MAX_VALUE;
+    for (int attempt = 0; attempt < 5; attempt++) {
+      impl.reset();
+      long before = threads.getThreadAllocatedBytes(threadId);
+      impl.build(1000, 40);
+      long after = threads.getThreadAllocatedBytes(threadId);
+      allocated = Math.min(allocated, after - before);
+    }
+
+    assertEquals("bytes allocated while building 40,001 elements", 0, allocated);
+  }
+
+  private static com.sun.management.ThreadMXBean threadMXBean() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    return threads instanceof com.sun.management.ThreadMXBean
+        ? (com.sun.management.ThreadMXBean) threads
+        : null;
+  }
+}
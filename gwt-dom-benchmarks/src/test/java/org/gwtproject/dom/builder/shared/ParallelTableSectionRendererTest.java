@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/**
+ * Checks that a {@link ParallelTableSectionRenderer} produces exactly the HTML of rendering the
+ * rows one after the other, for any split of the rows into tasks.
+ */
+public class ParallelTableSectionRendererTest {
+
+  private static final ParallelTableSectionRenderer.RowRenderer ROWS =
+      (tr, row) -> {
+        tr.id("r" + row);
+        tr.startTD().text("<" + row + ">").endTD();
+        TableCellBuilder td = tr.startTD();
+        td.startSpan().className("n").text(Integer.toString(row * 7)).endSpan();
+        td.endTD();
+      };
+
+  @Test
+  public void testMatchesSequentialRendering() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int rows : new int[] {0, 1, 7, 64, 1000}) {
+        String expected = renderSequentially(rows);
+        for (int rowsPerTask : new int[] {1, 3, 64, 5000}) {
+          ParallelTableSectionRenderer renderer =
+              new ParallelTableSectionRenderer(pool, rowsPerTask);
+          assertEquals(rows + "/" + rowsPerTask, expected, renderInParallel(renderer, rows));
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testRowsAfterParallelRows() {
+    HtmlTableBuilder table = HtmlBuilderFactory.get().createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    tbody.startTR().startTD().text("first").endTD();
+    tbody.endTR();
+    new ParallelTableSectionRenderer(ForkJoinPool.commonPool(), 2).render(tbody, 5, ROWS);
+    tbody.startTR().startTD().text("last").endTD();
+    tbody.endTR();
+    tbody.endTBody();
+    String html = table.asSafeHtml().asString();
+
+    assertTrue(html, html.startsWith("<table><tbody><tr><td>first</td></tr><tr id=\"r0\">"));
+    assertTrue(html, html.endsWith("<tr><td>last</td></tr></tbody></table>"));
+  }
+
+  @Test
+  public void testStreamedSection() {
+    StringBuilder out = new StringBuilder();
+    HtmlStreamingBuilderFactory factory = new HtmlStreamingBuilderFactory(out, 64);
+    HtmlTableBuilder table = factory.createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    new ParallelTableSectionRenderer(ForkJoinPool.commonPool(), 10).render(tbody, 100, ROWS);
+    tbody.endTBody();
+    table.flush();
+
+    assertEquals(renderSequentially(100), out.toString());
+  }
+
+  @Test
+  public void testOpLogSection() {
+    // The rows of a recording builder are rendered sequentially, so that they are logged.
+    OpLogBuilderFactory factory = new OpLogBuilderFactory();
+    HtmlTableBuilder table = factory.createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    new ParallelTableSectionRenderer(ForkJoinPool.commonPool(), 1).render(tbody, 3, ROWS);
+    tbody.endTBody();
+    String expected = renderSequentially(3);
+
+    assertEquals(expected, table.asSafeHtml().asString());
+    assertEquals(expected, factory.finishOpLog().toSafeHtml().asString());
+  }
+
+  @Test
+  public void testOpLogRowNotEnded() {
+    HtmlTableBuilder table = new OpLogBuilderFactory().createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    try {
+      new ParallelTableSectionRenderer().render(tbody, 1, (tr, row) -> tr.startTD());
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testRowNotEnded() {
+    HtmlTableBuilder table = HtmlBuilderFactory.get().createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    try {
+      new ParallelTableSectionRenderer(ForkJoinPool.commonPool(), 1)
+          .render(tbody, 4, (tr, row) -> tr.startTD().text("unclosed"));
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testRowEndedByRenderer() {
+    HtmlTableBuilder table = HtmlBuilderFactory.get().createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    try {
+      new ParallelTableSectionRenderer().render(tbody, 1, (tr, row) -> tr.endTR());
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testSectionNotOpen() {
+    HtmlTableBuilder table = HtmlBuilderFactory.get().createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    tbody.startTR();
+    try {
+      new ParallelTableSectionRenderer().render(tbody, 1, ROWS);
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    try {
+      new ParallelTableSectionRenderer(ForkJoinPool.commonPool(), 0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // Expected.
+    }
+
+    TableSectionBuilder tbody = HtmlBuilderFactory.get().createTBodyBuilder();
+    try {
+      new ParallelTableSectionRenderer().render(tbody, -1, ROWS);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // Expected.
+    }
+  }
+
+  private static String renderInParallel(ParallelTableSectionRenderer renderer, int rows) {
+    HtmlTableBuilder table = HtmlBuilderFactory.get().createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    renderer.render(tbody, rows, ROWS);
+    tbody.endTBody();
+    return table.asSafeHtml().asString();
+  }
+
+  private static String renderSequentially(int rows) {
+    HtmlTableBuilder table = HtmlBuilderFactory.get().createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    for (int row = 0; row < rows; row++) {
+      TableRowBuilder tr = tbody.startTR();
+      ROWS.render(tr, row);
+      tr.endTR();
+    }
+    tbody.endTBody();
+    return table.asSafeHtml().asString();
+  }
+}
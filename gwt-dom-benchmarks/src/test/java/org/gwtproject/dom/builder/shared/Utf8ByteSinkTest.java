@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/** Tests for {@link Utf8ByteSink}. */
+public class Utf8ByteSinkTest {
+
+  private static final String MIXED = "a&<éß€中😀z\ud83d!\ude00\ud800";
+
+  @Test
+  public void testEncodingMatchesString() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (Utf8ByteSink sink = Utf8ByteSink.to(out)) {
+      sink.append(MIXED);
+    }
+    assertArrayEquals(MIXED.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+  }
+
+  @Test
+  public void testSurrogatePairAcrossAppends() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (Utf8ByteSink sink = Utf8ByteSink.to(out, 4)) {
+      for (int i = 0; i < MIXED.length(); i++) {
+        sink.append(MIXED.charAt(i));
+        if (i % 3 == 0) {
+          sink.flush();
+        }
+      }
+    }
+    assertArrayEquals(MIXED.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+  }
+
+  @Test
+  public void testChannelChunks() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      text.append(MIXED, 0, 9).append(i);
+    }
+    byte[] expected = text.toString().getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Utf8ByteSink sink = Utf8ByteSink.to(Channels.newChannel(out));
+    sink.append(text);
+    // Full chunks have been written, the rest is still collected.
+    assertTrue(sink.getByteCount() > expected.length - Utf8ByteSink.DEFAULT_CHUNK_SIZE);
+    assertTrue(sink.getByteCount() < expected.length);
+    sink.close();
+    sink.close();
+    assertEquals(expected.length, sink.getByteCount());
+    assertArrayEquals(expected, out.toByteArray());
+  }
+
+  @Test
+  public void testAppendAfterClose() throws IOException {
+    Utf8ByteSink sink = Utf8ByteSink.to(new ByteArrayOutputStream());
+    sink.close();
+    try {
+      sink.append('a');
+      fail("Expected IllegalStateException: append after close");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testInvalidChunkSize() {
+    try {
+      Utf8ByteSink.to(new ByteArrayOutputStream(), 3);
+      fail("Expected IllegalArgumentException: chunk too small");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testStreamingBuilder() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (Utf8ByteSink sink = Utf8ByteSink.to(Channels.newChannel(out), 16)) {
+      HtmlStreamingBuilderFactory factory = new HtmlStreamingBuilderFactory(sink, 0);
+      HtmlUListBuilder ul = factory.createUListBuilder();
+      for (int i = 0; i < 100; i++) {
+        ul.startLI().title("é" + i).text("€ <" + i + ">").endLI();
+      }
+      ul.flush();
+    }
+    HtmlUListBuilder ul = HtmlBuilderFactory.get().createUListBuilder();
+    for (int i = 0; i < 100; i++) {
+      ul.startLI().title("é" + i).text("€ <" + i + ">").endLI();
+    }
+    assertEquals(ul.asSafeHtml().asString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+  }
+}
@@ -31,6 +31,14 @@ import org.junit.runners.Suite;
   GwtDomBuilderImplTest.class,
   GwtDomStylesBuilderTest.class,
 
+  // Fragment tests.
+  GwtFragmentBuilderFactoryTest.class,
+  GwtAdaptiveBuilderFactoryTest.class,
+  GwtReconcilingBuilderFactoryTest.class,
+  GwtIncrementalRendererTest.class,
+  GwtOpLogBuilderFactoryTest.class,
+  GwtHydratingBuilderFactoryTest.class,
+
   // Element builder tests.
   GwtAnchorBuilderTest.class,
   GwtAreaBuilderTest.class,
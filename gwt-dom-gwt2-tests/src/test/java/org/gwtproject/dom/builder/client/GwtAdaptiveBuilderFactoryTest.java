@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import org.gwtproject.dom.builder.shared.AdaptiveBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlDivBuilder;
+import org.gwtproject.dom.client.DivElement;
+import org.gwtproject.dom.client.Element;
+
+/** Gwt tests for {@link AdaptiveBuilderFactory}. */
+public class GwtAdaptiveBuilderFactoryTest extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.dom.builder.BuilderDOM";
+  }
+
+  public void testLargeTreeUsesHtml() {
+    AdaptiveBuilderFactory factory = new AdaptiveBuilderFactory(4);
+    Element div = build(factory, 10);
+    assertEquals(0, factory.getDomCount());
+    assertEquals(1, factory.getHtmlCount());
+    assertTree(div, 10);
+  }
+
+  public void testResetCounts() {
+    AdaptiveBuilderFactory factory = new AdaptiveBuilderFactory(4);
+    build(factory, 1);
+    build(factory, 10);
+    factory.resetCounts();
+    assertEquals(0, factory.getDomCount());
+    assertEquals(0, factory.getHtmlCount());
+  }
+
+  public void testSmallTreeAsSafeHtml() {
+    // The HTML of a small tree is only generated when it is requested.
+    HtmlDivBuilder div = new AdaptiveBuilderFactory(4).createDivBuilder();
+    div.id("root").startSpan().text("a < 0").endSpan();
+    assertEquals("<div id=\"root\"><span>a &lt; 0</span></div>", div.asSafeHtml().asString());
+  }
+
+  public void testSmallTreeUsesDom() {
+    AdaptiveBuilderFactory factory = new AdaptiveBuilderFactory(4);
+    Element div = build(factory, 2);
+    assertEquals(1, factory.getDomCount());
+    assertEquals(0, factory.getHtmlCount());
+    assertTree(div, 2);
+  }
+
+  private void assertTree(Element div, int children) {
+    assertEquals("root", div.getId());
+    assertEquals("red", div.getStyle().getColor());
+    assertEquals(children, div.getChildCount());
+    Element first = div.getFirstChildElement();
+    assertEquals("SPAN", first.getTagName());
+    assertEquals("item", first.getClassName());
+    assertEquals("a < 0", first.getInnerText());
+    assertEquals(DivElement.TAG, div.getTagName().toLowerCase());
+  }
+
+  private Element build(AdaptiveBuilderFactory factory, int children) {
+    HtmlDivBuilder div = factory.createDivBuilder();
+    div.id("root").style().trustedColor("red").endStyle();
+    for (int i = 0; i < children; i++) {
+      div.startSpan().className("item").text("a < " + i).endSpan();
+    }
+    return div.finish();
+  }
+}
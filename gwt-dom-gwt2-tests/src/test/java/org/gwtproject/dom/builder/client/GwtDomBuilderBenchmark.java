@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import org.gwtproject.dom.builder.shared.TableRowBuilder;
+import org.gwtproject.dom.builder.shared.TableSectionBuilder;
+import org.gwtproject.dom.client.Document;
+import org.gwtproject.dom.client.Element;
+import org.gwtproject.dom.client.TableElement;
+
+/**
+ * Compares building a table with {@link DomBuilderFactory} to building it with plain DOM calls,
+ * with and without the DOM reads that {@link DomBuilderImpl} used to make for every element:
+ * reading the tag name of each started element and the parent of each ended element.
+ *
+ * <p>The timings are only printed, as they depend on the browser. The test fails if the builder
+ * produces the wrong structure.
+ *
+ * <p>This is not a unit test: it is not part of {@link
+ * org.gwtproject.dom.builder.ElementBuilderGwtSuite}, and its name does not match the test
+ * patterns, so it only runs when selected explicitly, for example with {@code
+ * -Dtest=GwtDomBuilderBenchmark}.
+ */
+public class GwtDomBuilderBenchmark extends GWTTestCase {
+
+  private static final int ROUNDS = 20;
+  private static final int ROWS = 200;
+  private static final int CELLS = 10;
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.dom.builder.BuilderDOM";
+  }
+
+  public void testBuildTable() {
+    // Warm up.
+    for (int i = 0; i < ROUNDS; i++) {
+      buildWithBuilder();
+      buildWithDom(true);
+      buildWithDom(false);
+    }
+
+    long start = System.currentTimeMillis();
+    TableElement table = null;
+    for (int i = 0; i < ROUNDS; i++) {
+      table = buildWithBuilder();
+    }
+    long builderTime = System.currentTimeMillis() - start;
+
+    start = System.currentTimeMillis();
+    for (int i = 0; i < ROUNDS; i++) {
+      buildWithDom(true);
+    }
+    long readBackTime = System.currentTimeMillis() - start;
+
+    start = System.currentTimeMillis();
+    for (int i = 0; i < ROUNDS; i++) {
+      buildWithDom(false);
+    }
+    long writeOnlyTime = System.currentTimeMillis() - start;
+
+    System.out.println(
+        "DomBuilderFactory: "
+            + builderTime
+            + "ms, DOM with read-backs: "
+            + readBackTime
+            + "ms, DOM writes only: "
+            + writeOnlyTime
+            + "ms ("
+            + ROUNDS
+            + " tables of "
+            + ROWS
+            + "x"
+            + CELLS
+            + ")");
+
+    assertEquals(ROWS, table.getRows().getLength());
+    assertEquals(CELLS, table.getRows().getItem(ROWS - 1).getCells().getLength());
+  }
+
+  private TableElement buildWithBuilder() {
+    DomTableBuilder table = DomBuilderFactory.get().createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    for (int r = 0; r < ROWS; r++) {
+      TableRowBuilder tr = tbody.startTR();
+      for (int c = 0; c < CELLS; c++) {
+        tr.startTD().text("cell").endTD();
+      }
+      tr.endTR();
+    }
+    tbody.endTBody();
+    table.endTable();
+    return table.finish().cast();
+  }
+
+  /**
+   * Build the same table with plain DOM calls.
+   *
+   * @param readBack true to read the tag name of every started element and the parent of every
+   *     ended element, as {@link DomBuilderImpl} used to do
+   */
+  private Element buildWithDom(boolean readBack) {
+    Document doc = Document.get();
+    Element table = doc.createTableElement();
+    Element tbody = start(table, doc.createTBodyElement(), readBack);
+    for (int r = 0; r < ROWS; r++) {
+      Element tr = start(tbody, doc.createTRElement(), readBack);
+      for (int c = 0; c < CELLS; c++) {
+        Element td = start(tr, doc.createTDElement(), readBack);
+        td.setInnerText("cell");
+        end(td, readBack);
+      }
+      end(tr, readBack);
+    }
+    end(tbody, readBack);
+    return table;
+  }
+
+  private void end(Element element, boolean readBack) {
+    if (readBack) {
+      element.getParentElement();
+    }
+  }
+
+  private Element start(Element parent, Element child, boolean readBack) {
+    if (readBack) {
+      child.getTagName();
+    }
+    parent.appendChild(child);
+    return child;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import org.gwtproject.dom.builder.shared.ElementBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlFragmentBuilderFactory;
+import org.gwtproject.dom.builder.shared.TableRowBuilder;
+import org.gwtproject.dom.client.Document;
+import org.gwtproject.dom.client.DocumentFragment;
+import org.gwtproject.dom.client.Node;
+import org.gwtproject.dom.client.TableElement;
+import org.gwtproject.dom.client.TableRowElement;
+import org.gwtproject.dom.client.TableSectionElement;
+
+/** Gwt tests for {@link DomFragmentBuilderFactory} and {@link HtmlFragmentBuilderFactory}. */
+public class GwtFragmentBuilderFactoryTest extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.dom.builder.BuilderDOM";
+  }
+
+  public void testDomFragment() {
+    DomFragmentBuilderFactory factory = new DomFragmentBuilderFactory();
+    buildRows(factory);
+    assertRows(factory.finish());
+  }
+
+  public void testDomFragmentFinishTwice() {
+    DomFragmentBuilderFactory factory = new DomFragmentBuilderFactory();
+    buildRows(factory);
+    factory.finish();
+    try {
+      factory.finish();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+  }
+
+  public void testFinishIntoLiveParent() {
+    TableElement table = Document.get().createTableElement();
+    TableSectionElement tbody = Document.get().createTBodyElement();
+    table.appendChild(tbody);
+    Document.get().getBody().appendChild(table);
+    try {
+      TableRowElement last = Document.get().createTRElement();
+      tbody.appendChild(last);
+
+      DomFragmentBuilderFactory factory = new DomFragmentBuilderFactory();
+      buildRows(factory);
+      factory.finishInto(tbody, last);
+
+      assertEquals(4, tbody.getRows().getLength());
+      assertEquals("row0", tbody.getRows().getItem(0).getId());
+      assertEquals(last, tbody.getRows().getItem(3));
+
+      HtmlFragmentBuilderFactory htmlFactory = new HtmlFragmentBuilderFactory();
+      buildRows(htmlFactory);
+      htmlFactory.finishInto(tbody);
+      assertEquals(7, tbody.getRows().getLength());
+      assertEquals("row2", tbody.getRows().getItem(6).getId());
+    } finally {
+      table.removeFromParent();
+    }
+  }
+
+  public void testHtmlFragment() {
+    HtmlFragmentBuilderFactory factory = new HtmlFragmentBuilderFactory();
+    buildRows(factory);
+    assertRows(factory.finish());
+  }
+
+  private void assertRows(DocumentFragment fragment) {
+    assertEquals(Node.DOCUMENT_FRAGMENT_NODE, fragment.getNodeType());
+    assertEquals(3, fragment.getChildElementCount());
+    assertTrue("tr".equalsIgnoreCase(fragment.getFirstElementChild().getTagName()));
+
+    // Insert all rows at once.
+    TableSectionElement tbody = Document.get().createTBodyElement();
+    tbody.appendChild(fragment);
+    assertEquals(0, fragment.getChildCount());
+    assertEquals(3, tbody.getRows().getLength());
+    for (int r = 0; r < 3; r++) {
+      assertEquals("row" + r, tbody.getRows().getItem(r).getId());
+      assertEquals("cell" + r, tbody.getRows().getItem(r).getCells().getItem(0).getInnerText());
+    }
+  }
+
+  private void buildRows(ElementBuilderFactory factory) {
+    for (int r = 0; r < 3; r++) {
+      TableRowBuilder tr = factory.createTRBuilder().id("row" + r);
+      tr.startTD().text("cell" + r).endTD();
+      tr.endTR();
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.dom.builder.shared.ElementTemplate;
+import org.gwtproject.dom.builder.shared.HtmlBuilderFactory;
+import org.gwtproject.dom.builder.shared.HtmlDivBuilder;
+import org.gwtproject.dom.builder.shared.HtmlSpanBuilder;
+import org.gwtproject.dom.builder.shared.HtmlUListBuilder;
+import org.gwtproject.dom.builder.shared.HydratingBuilderFactory;
+import org.gwtproject.dom.builder.shared.UListBuilder;
+import org.gwtproject.dom.client.DivElement;
+import org.gwtproject.dom.client.Document;
+import org.gwtproject.dom.client.Element;
+
+/** Gwt tests for {@link HydratingBuilderFactory}. */
+public class GwtHydratingBuilderFactoryTest extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.dom.builder.BuilderDOM";
+  }
+
+  public void testBindsToExistingElements() {
+    DivElement container = Document.get().createDivElement();
+    container.setInnerHTML(serverHtml("a", "b", "c"));
+    Element ul = container.getFirstChildElement();
+
+    HydratingBuilderFactory factory = new HydratingBuilderFactory(ul);
+    List<Element> items = new ArrayList<>();
+    assertSame(ul, render(factory, items, "a", "b", "c"));
+    assertNull(factory.getMismatch());
+    assertEquals(3, items.size());
+    assertSame(ul.getFirstChildElement(), items.get(0));
+    assertSame(ul.getFirstChildElement().getNextSiblingElement(), items.get(1));
+    assertEquals("c", items.get(2).getInnerText());
+    assertEquals(1, container.getChildCount());
+  }
+
+  public void testMismatchIsReported() {
+    DivElement container = Document.get().createDivElement();
+    container.setInnerHTML(serverHtml("a", "b"));
+    Element ul = container.getFirstChildElement();
+
+    HydratingBuilderFactory factory = new HydratingBuilderFactory(ul);
+    List<Element> items = new ArrayList<>();
+    try {
+      Element element = render(factory, items, "a", "b", "c");
+      // Without assertions, the tree is rebuilt from the recorded builder calls.
+      assertNotSame(ul, element);
+      assertSame(element, container.getFirstChildElement());
+      assertEquals(3, element.getChildCount());
+      assertSame(element, factory.getTarget());
+    } catch (AssertionError e) {
+      // Debug builds report the mismatch.
+    }
+    assertNotNull(factory.getMismatch());
+    assertNull(items.get(2));
+  }
+
+  public void testExtraElementIsReported() {
+    DivElement container = Document.get().createDivElement();
+    container.setInnerHTML(serverHtml("a", "b", "c"));
+    Element ul = container.getFirstChildElement();
+    HydratingBuilderFactory factory = new HydratingBuilderFactory(ul);
+    try {
+      render(factory, new ArrayList<Element>(), "a", "b");
+    } catch (AssertionError e) {
+      // Debug builds report the mismatch.
+    }
+    assertNotNull(factory.getMismatch());
+  }
+
+  public void testHtmlFromBuilderIsNotMatched() {
+    DivElement container = Document.get().createDivElement();
+    container.setInnerHTML("<div><span>a</span></div>");
+    Element div = container.getFirstChildElement();
+    HydratingBuilderFactory factory = new HydratingBuilderFactory(div);
+
+    // The spliced children come from the HTML, like the children of html(SafeHtml).
+    HtmlDivBuilder builder = factory.createDivBuilder();
+    HtmlSpanBuilder span = HtmlBuilderFactory.get().createSpanBuilder();
+    span.text("a");
+    builder.html(span);
+    assertSame(div, builder.finish());
+    assertNull(factory.getMismatch());
+  }
+
+  public void testTemplatesAreMatched() {
+    ElementTemplate item =
+        ElementTemplate.record().start("li").attribute("class", "item").textHole("name").compile();
+    DivElement container = Document.get().createDivElement();
+    HtmlUListBuilder server = HtmlBuilderFactory.get().createUListBuilder();
+    item.appendTo(server, "a");
+    item.appendTo(server, "b");
+    container.setInnerHTML(server.asSafeHtml().asString());
+    Element ul = container.getFirstChildElement();
+
+    HydratingBuilderFactory factory = new HydratingBuilderFactory(ul);
+    HtmlUListBuilder client = factory.createUListBuilder();
+    item.appendTo(client, "a");
+    item.appendTo(client, "b");
+    assertSame(ul, client.finish());
+    assertNull(factory.getMismatch());
+  }
+
+  public void testAsSafeHtmlMatchesServerHtml() {
+    DivElement container = Document.get().createDivElement();
+    String html = serverHtml("a", "<b>");
+    container.setInnerHTML(html);
+
+    HydratingBuilderFactory factory = new HydratingBuilderFactory(container.getFirstChildElement());
+    HtmlUListBuilder ul = factory.createUListBuilder();
+    build(ul, factory, new ArrayList<Element>(), "a", "<b>");
+    assertEquals(html, ul.asSafeHtml().asString());
+    assertNull(factory.getMismatch());
+  }
+
+  /** Render the list on the "server". */
+  private static String serverHtml(String... names) {
+    HtmlUListBuilder ul = HtmlBuilderFactory.get().createUListBuilder();
+    build(ul, null, null, names);
+    return ul.asSafeHtml().asString();
+  }
+
+  private static Element render(
+      HydratingBuilderFactory factory, List<Element> items, String... names) {
+    UListBuilder ul = factory.createUListBuilder();
+    build(ul, factory, items, names);
+    return ul.finish();
+  }
+
+  /** The rendering code that runs on both sides. */
+  private static void build(
+      UListBuilder ul, HydratingBuilderFactory factory, List<Element> items, String... names) {
+    ul.className("list");
+    for (String name : names) {
+      ul.startLI().text(name);
+      if (factory != null) {
+        items.add(factory.getCurrentElement());
+      }
+      ul.endLI();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import org.gwtproject.dom.builder.shared.ElementBuilderFactory;
+import org.gwtproject.dom.builder.shared.LIBuilder;
+import org.gwtproject.dom.client.Document;
+import org.gwtproject.dom.client.Element;
+import org.gwtproject.dom.client.UListElement;
+
+/** Gwt tests for {@link IncrementalRenderer}. */
+public class GwtIncrementalRendererTest extends GWTTestCase {
+
+  private static final int ITEM_COUNT = 2000;
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.dom.builder.BuilderDOM";
+  }
+
+  public void testCancel() {
+    UListElement ul = Document.get().createULElement();
+    IncrementalRenderer renderer = new IncrementalRenderer(ul, ITEM_COUNT, this::renderItem);
+    renderer.setBudgetMillis(0.001);
+    renderer.setCompletionCallback(() -> fail("Cancelled renderer completed"));
+    renderer.start();
+    assertEquals(1, ul.getChildCount());
+
+    // The first slice renders at least one item.
+    assertTrue(renderer.execute());
+    renderer.cancel();
+    int rendered = renderer.getRenderedCount();
+    assertTrue(renderer.isCancelled());
+    assertFalse(renderer.execute());
+    assertEquals(rendered, ul.getChildCount());
+  }
+
+  public void testRendersAllItemsInSlices() {
+    UListElement ul = Document.get().createULElement();
+    Element placeholder = Document.get().createLIElement();
+    placeholder.setInnerText("Loading");
+    ul.appendChild(placeholder);
+
+    IncrementalRenderer renderer = new IncrementalRenderer(ul, ITEM_COUNT, this::renderItem);
+    renderer.setBudgetMillis(1);
+    renderer.setPlaceholder(placeholder);
+    renderer.setCompletionCallback(
+        () -> {
+          assertTrue(renderer.isComplete());
+          assertEquals(ITEM_COUNT, ul.getChildCount());
+          assertEquals("0", ul.getFirstChildElement().getInnerText());
+          assertNull(placeholder.getParentNode());
+          finishTest();
+        });
+    delayTestFinish(10000);
+    renderer.start();
+
+    // Nothing is rendered synchronously.
+    assertEquals(0, renderer.getRenderedCount());
+    assertEquals(placeholder, ul.getFirstChild());
+  }
+
+  public void testStartTwice() {
+    IncrementalRenderer renderer =
+        new IncrementalRenderer(Document.get().createULElement(), 0, this::renderItem);
+    renderer.start();
+    try {
+      renderer.start();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+  }
+
+  private void renderItem(ElementBuilderFactory factory, int index) {
+    LIBuilder li = factory.createLIBuilder();
+    li.text(String.valueOf(index));
+    li.endLI();
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import org.gwtproject.dom.builder.shared.ElementOpLog;
+import org.gwtproject.dom.builder.shared.HtmlTableBuilder;
+import org.gwtproject.dom.builder.shared.OpLogBuilderFactory;
+import org.gwtproject.dom.builder.shared.TableRowBuilder;
+import org.gwtproject.dom.builder.shared.TableSectionBuilder;
+import org.gwtproject.dom.client.Element;
+import org.gwtproject.dom.client.InputElement;
+import org.gwtproject.dom.client.TableElement;
+
+/** Gwt tests for {@link OpLogBuilderFactory} and {@link ElementOpLog}. */
+public class GwtOpLogBuilderFactoryTest extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.dom.builder.BuilderDOM";
+  }
+
+  public void testPlaysBackToElement() {
+    OpLogBuilderFactory factory = new OpLogBuilderFactory();
+    HtmlTableBuilder table = factory.createTableBuilder();
+    table.className("grid");
+    TableSectionBuilder tbody = table.startTBody();
+    for (int r = 0; r < 3; r++) {
+      TableRowBuilder tr = tbody.startTR().attribute("data-key", r);
+      tr.startTD().text("cell " + r).endTD();
+      tr.startTD().startCheckboxInput().checked().endInput();
+      tr.endTD();
+      tr.endTR();
+    }
+    byte[] bytes = factory.finishOpLog().toBytes();
+
+    Element element = ElementOpLog.fromBytes(bytes).toElement();
+    assertEquals("table", element.getTagName().toLowerCase());
+    TableElement tableElement = element.cast();
+    assertEquals("grid", tableElement.getClassName());
+    assertEquals(3, tableElement.getRows().getLength());
+    assertEquals("2", tableElement.getRows().getItem(2).getAttribute("data-key"));
+    assertEquals("cell 1", tableElement.getRows().getItem(1).getCells().getItem(0).getInnerText());
+    InputElement input =
+        tableElement.getRows().getItem(0).getCells().getItem(1).getFirstChildElement().cast();
+    assertEquals("checkbox", input.getType());
+    assertTrue(input.isChecked());
+  }
+
+  public void testHtmlMatchesBuilder() {
+    OpLogBuilderFactory factory = new OpLogBuilderFactory();
+    HtmlTableBuilder table = factory.createTableBuilder();
+    table.startTBody().startTR().startTD().text("a & b").endTD();
+    ElementOpLog log = factory.finishOpLog();
+    assertEquals(table.asSafeHtml().asString(), log.toSafeHtml().asString());
+  }
+}
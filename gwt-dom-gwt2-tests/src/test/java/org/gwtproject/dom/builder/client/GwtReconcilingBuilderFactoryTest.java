@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import org.gwtproject.dom.builder.shared.ElementTemplate;
+import org.gwtproject.dom.builder.shared.HtmlDivBuilder;
+import org.gwtproject.dom.builder.shared.HtmlUListBuilder;
+import org.gwtproject.dom.builder.shared.ReconcilingBuilderFactory;
+import org.gwtproject.dom.client.Document;
+import org.gwtproject.dom.client.Element;
+import org.gwtproject.dom.client.UListElement;
+
+/** Gwt tests for {@link ReconcilingBuilderFactory}. */
+public class GwtReconcilingBuilderFactoryTest extends GWTTestCase {
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.dom.builder.BuilderDOM";
+  }
+
+  public void testBuildIntoEmptyElement() {
+    UListElement ul = Document.get().createULElement();
+    ReconcilingBuilderFactory factory = new ReconcilingBuilderFactory(ul);
+    assertEquals(ul, render(factory, "a", "b", "c"));
+    assertItems(ul, "a", "b", "c");
+    assertEquals("list", ul.getClassName());
+  }
+
+  public void testKeyedItemsAreMoved() {
+    UListElement ul = Document.get().createULElement();
+    ReconcilingBuilderFactory factory = new ReconcilingBuilderFactory(ul);
+    render(factory, "a", "b", "c");
+    Element a = ul.getChild(0).cast();
+    Element c = ul.getChild(2).cast();
+
+    // Move c to the front and remove b.
+    render(factory, "c", "a");
+    assertItems(ul, "c", "a");
+    assertEquals(c, ul.getChild(0));
+    assertEquals(a, ul.getChild(1));
+    // One removal and one move.
+    assertEquals(2, factory.getMutationCount());
+  }
+
+  public void testFewestItemsAreMoved() {
+    UListElement ul = Document.get().createULElement();
+    ReconcilingBuilderFactory factory = new ReconcilingBuilderFactory(ul);
+    render(factory, "a", "b", "c", "d");
+    Element a = ul.getChild(0).cast();
+
+    // Only a is moved, b, c and d stay in place.
+    render(factory, "b", "c", "d", "a");
+    assertItems(ul, "b", "c", "d", "a");
+    assertEquals(a, ul.getChild(3));
+    assertEquals(1, factory.getMutationCount());
+
+    // Only c is moved, and e is created with its attribute and text, then inserted.
+    render(factory, "b", "e", "d", "a", "c");
+    assertItems(ul, "b", "e", "d", "a", "c");
+    assertEquals(5, factory.getMutationCount());
+  }
+
+  public void testRemovesStaleAttributes() {
+    Element div = Document.get().createDivElement();
+    div.setAttribute("title", "stale");
+    div.setAttribute("style", "color:red;");
+    ReconcilingBuilderFactory factory = new ReconcilingBuilderFactory(div);
+    factory.createDivBuilder().id("fresh").finish();
+
+    assertEquals("fresh", div.getId());
+    assertFalse(div.hasAttribute("title"));
+    assertFalse(div.hasAttribute("style"));
+  }
+
+  public void testReplacesRootWithDifferentTag() {
+    Element parent = Document.get().createDivElement();
+    Element span = Document.get().createSpanElement();
+    parent.appendChild(span);
+    ReconcilingBuilderFactory factory = new ReconcilingBuilderFactory(span);
+
+    Element div = factory.createDivBuilder().text("replaced").finish();
+    assertEquals("DIV", div.getTagName().toUpperCase());
+    assertEquals(div, parent.getFirstChild());
+    assertEquals(div, factory.getTarget());
+  }
+
+  public void testTemplatesAreReconciled() {
+    ElementTemplate item =
+        ElementTemplate.record()
+            .start("li")
+            .attributeHole("data-key", "key")
+            .textHole("text")
+            .end()
+            .compile();
+    UListElement ul = Document.get().createULElement();
+    ReconcilingBuilderFactory factory = new ReconcilingBuilderFactory(ul);
+    render(factory, "a", "b");
+    Element b = ul.getChild(1).cast();
+
+    HtmlUListBuilder builder = factory.createUListBuilder();
+    builder.className("list");
+    item.appendTo(builder, "b", "Item b");
+    item.appendTo(builder, "c", "Item c");
+    builder.finish();
+    assertItems(ul, "b", "c");
+    assertEquals(b, ul.getChild(0));
+    // a is removed, and c is created with its attribute and text, then inserted.
+    assertEquals(5, factory.getMutationCount());
+  }
+
+  public void testUnchangedRenderDoesNotMutate() {
+    UListElement ul = Document.get().createULElement();
+    ReconcilingBuilderFactory factory = new ReconcilingBuilderFactory(ul);
+    render(factory, "a", "b");
+    render(factory, "a", "b");
+    assertEquals(0, factory.getMutationCount());
+  }
+
+  public void testUnkeyedChildrenAreMatchedByTagName() {
+    Element div = Document.get().createDivElement();
+    ReconcilingBuilderFactory factory = new ReconcilingBuilderFactory(div);
+    HtmlDivBuilder builder = factory.createDivBuilder();
+    builder.startDiv().endDiv();
+    builder.startSpan().endSpan();
+    builder.finish();
+    Element first = div.getChild(0).cast();
+    Element second = div.getChild(1).cast();
+
+    // Swap the order, so that the span is matched before the div.
+    builder = factory.createDivBuilder();
+    builder.startSpan().endSpan();
+    builder.startDiv().endDiv();
+    builder.finish();
+    assertEquals(2, div.getChildCount());
+    assertEquals(second, div.getChild(0));
+    assertEquals(first, div.getChild(1));
+    // Only one move, and nothing is created or removed.
+    assertEquals(1, factory.getMutationCount());
+  }
+
+  public void testUpdatesChangedText() {
+    UListElement ul = Document.get().createULElement();
+    ReconcilingBuilderFactory factory = new ReconcilingBuilderFactory(ul);
+    render(factory, "a");
+    Element li = ul.getFirstChildElement();
+
+    HtmlUListBuilder builder = factory.createUListBuilder();
+    builder.className("list");
+    builder.startLI().attribute("data-key", "a").text("changed").endLI();
+    builder.finish();
+
+    assertEquals(li, ul.getFirstChildElement());
+    assertEquals("changed", li.getInnerText());
+    assertEquals(1, factory.getMutationCount());
+  }
+
+  private void assertItems(Element ul, String... keys) {
+    assertEquals(keys.length, ul.getChildCount());
+    for (int i = 0; i < keys.length; i++) {
+      Element li = ul.getChild(i).cast();
+      assertEquals(keys[i], li.getAttribute("data-key"));
+      assertEquals("Item " + keys[i], li.getInnerText());
+    }
+  }
+
+  private Element render(ReconcilingBuilderFactory factory, String... keys) {
+    HtmlUListBuilder builder = factory.createUListBuilder();
+    builder.className("list");
+    for (String key : keys) {
+      builder.startLI().attribute("data-key", key).text("Item " + key).endLI();
+    }
+    return builder.finish();
+  }
+}
@@ -15,6 +15,9 @@
  */
 package org.gwtproject.dom.builder.shared;
 
+import org.gwtproject.dom.style.shared.Unit;
+import org.gwtproject.safecss.shared.SafeStylesUtils;
+
 /** Gwt tests for {@link HtmlStylesBuilder}. */
 public class GwtHtmlStylesBuilderTest extends GwtStylesBuilderTestBase {
 
@@ -28,6 +31,37 @@ public class GwtHtmlStylesBuilderTest extends GwtStylesBuilderTestBase {
         "already-hyphenated-twice", HtmlStylesBuilder.toHyphenatedForm("already-hyphenated-twice"));
   }
 
+  public void testToHyphenatedFormCustomNames() {
+    // Known properties come from the table, custom names are converted and cached.
+    assertEquals("background-color", HtmlStylesBuilder.toHyphenatedForm("backgroundColor"));
+    assertEquals("list-style-type", HtmlStylesBuilder.toHyphenatedForm("listStyleType"));
+    for (int i = 0; i < 2; i++) {
+      assertEquals("my-custom-prop", HtmlStylesBuilder.toHyphenatedForm("myCustomProp"));
+      assertEquals("-moz-box-sizing", HtmlStylesBuilder.toHyphenatedForm("MozBoxSizing"));
+      assertEquals("x-y-z", HtmlStylesBuilder.toHyphenatedForm("xYZ"));
+    }
+    // Characters before the first letter are dropped.
+    assertEquals("foo-bar", HtmlStylesBuilder.toHyphenatedForm("_fooBar"));
+  }
+
+  public void testNumericPropertiesMatchSafeStyles() {
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.style()
+        .width(12, Unit.PX)
+        .marginLeft(1.5, Unit.EM)
+        .opacity(0.25)
+        .trustedProperty("paddingTop", -3, Unit.PCT)
+        .endStyle();
+    String expected =
+        SafeStylesUtils.fromTrustedNameAndValue("width", 12.0 + Unit.PX.getType()).asString()
+            + SafeStylesUtils.fromTrustedNameAndValue("margin-left", 1.5 + Unit.EM.getType())
+                .asString()
+            + SafeStylesUtils.forOpacity(0.25).asString()
+            + SafeStylesUtils.fromTrustedNameAndValue("padding-top", -3.0 + Unit.PCT.getType())
+                .asString();
+    assertEquals("<div style=\"" + expected + "\"></div>", div.asSafeHtml().asString());
+  }
+
   @Override
   protected ElementBuilderFactory getElementBuilderFactory() {
     return HtmlBuilderFactory.get();
@@ -97,19 +97,30 @@ public class ElementTest extends GWTTestCase {
     assertEquals("foo baz tintin tintin2", div.getClassName());
   }
 
-  public void testIndexOfName() {
-    assertEquals(-1, Element.indexOfName("", "foo"));
+  public void testSetClassNames() {
+    DivElement div = Document.get().createDivElement();
+    div.setClassName("foo bar baz");
+
+    div.setClassNames(new String[] {"tintin", " milou ", "foo"}, new String[] {"bar", "baz"});
+    assertEquals("foo tintin milou", div.getClassName());
 
-    assertEquals(-1, Element.indexOfName("foo", "fo"));
-    assertEquals(-1, Element.indexOfName("foo", "fool"));
+    div.setClassNames(new String[] {"bar"}, new String[] {"bar", "tintin"});
+    assertEquals("foo milou bar", div.getClassName());
 
-    assertEquals(-1, Element.indexOfName("bar fool", "foo"));
-    assertEquals(-1, Element.indexOfName("bar fool baz", "foo"));
+    div.setClassNames(null, new String[] {"foo", "missing"});
+    assertEquals("milou bar", div.getClassName());
+
+    div.setClassNames(new String[0], null);
+    assertEquals("milou bar", div.getClassName());
+  }
 
-    assertEquals(0, Element.indexOfName("foo", "foo"));
-    assertEquals(0, Element.indexOfName("foo bar", "foo"));
-    assertEquals(4, Element.indexOfName("bar foo", "foo"));
-    assertEquals(4, Element.indexOfName("bar foo baz", "foo"));
+  public void testClassNamesAreNormalized() {
+    DivElement div = Document.get().createDivElement();
+    div.setClassName("  foo   bar ");
+
+    assertTrue(div.addClassName("baz"));
+    assertEquals("foo bar baz", div.getClassName());
+    assertTrue(div.hasClassName(" bar "));
   }
 
   /** firstChildElement, nextSiblingElement, previousSiblingElement. */
@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+
+import org.gwtproject.dom.style.shared.Unit;
+import org.gwtproject.safehtml.shared.SafeHtmlUtils;
+import org.junit.Test;
+
+/** Tests for {@link AdaptiveBuilderFactory}. */
+public class AdaptiveBuilderFactoryTest {
+
+  @Test
+  public void testAsSafeHtmlMatchesHtmlBuilder() {
+    // Below and above the threshold, the generated HTML does not depend on the recording.
+    for (int rows : new int[] {1, 10}) {
+      HtmlTableBuilder adaptive = new AdaptiveBuilderFactory(4).createTableBuilder();
+      buildTable(adaptive, rows);
+      HtmlTableBuilder html = HtmlBuilderFactory.get().createTableBuilder();
+      buildTable(html, rows);
+      assertEquals(html.asSafeHtml().asString(), adaptive.asSafeHtml().asString());
+    }
+  }
+
+  @Test
+  public void testAsSafeHtmlMatchesHtmlBuilderAtEveryThreshold() {
+    // The HTML of the recorded operations is generated when the threshold is reached, which falls
+    // on an open style attribute, an ended style attribute, a void element and an element with
+    // HTML, depending on the threshold.
+    String expected = buildForm(HtmlBuilderFactory.get().createDivBuilder());
+    for (int threshold = 1; threshold <= 8; threshold++) {
+      AdaptiveBuilderFactory factory = new AdaptiveBuilderFactory(threshold);
+      assertEquals(expected, buildForm(factory.createDivBuilder()));
+    }
+  }
+
+  @Test
+  public void testColElementsHaveNoEndTag() {
+    for (int threshold = 1; threshold <= 4; threshold++) {
+      HtmlTableBuilder table = new AdaptiveBuilderFactory(threshold).createTableBuilder();
+      TableColBuilder colGroup = table.startColGroup();
+      colGroup.startCol().span(2).endCol();
+      colGroup.startCol().endCol();
+      colGroup.endColGroup();
+      assertEquals(
+          "<table><colgroup><col span=\"2\" /><col /></colgroup></table>",
+          table.asSafeHtml().asString());
+    }
+  }
+
+  @Test
+  public void testNumericStylesMatchHtmlBuilder() {
+    String expected = buildNumericStyles(HtmlBuilderFactory.get().createDivBuilder());
+    for (int threshold = 1; threshold <= 3; threshold++) {
+      AdaptiveBuilderFactory factory = new AdaptiveBuilderFactory(threshold);
+      assertEquals(expected, buildNumericStyles(factory.createDivBuilder()));
+    }
+  }
+
+  @Test
+  public void testTemplatesMatchHtmlBuilder() {
+    ElementTemplate template =
+        ElementTemplate.record().start("span").attributeHole("title", "t").textHole("x").compile();
+    String expected = buildTemplates(HtmlBuilderFactory.get().createDivBuilder(), template);
+    for (int threshold = 1; threshold <= 4; threshold++) {
+      AdaptiveBuilderFactory factory = new AdaptiveBuilderFactory(threshold);
+      assertEquals(expected, buildTemplates(factory.createDivBuilder(), template));
+    }
+  }
+
+  @Test
+  public void testCountsStartAtZero() {
+    AdaptiveBuilderFactory factory = new AdaptiveBuilderFactory();
+    assertEquals(AdaptiveBuilderFactory.DEFAULT_THRESHOLD, factory.getThreshold());
+    assertEquals(0, factory.getDomCount());
+    assertEquals(0, factory.getHtmlCount());
+  }
+
+  @Test
+  public void testInvalidThreshold() {
+    try {
+      new AdaptiveBuilderFactory(0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // Expected.
+    }
+  }
+
+  private String buildForm(HtmlDivBuilder div) {
+    div.style().trustedProperty("color", "red");
+    DivBuilder child = div.startDiv();
+    child.title("t");
+    child.style().trustedProperty("width", "1px").endStyle();
+    child.startTextInput().name("a").value("<b>").endInput();
+    child.startBR().endBR();
+    child.startSpan().html(SafeHtmlUtils.fromTrustedString("<i>1</i>")).endSpan();
+    child.startImage().src("x.png").endImage();
+    child.startSpan().text("a & b").endSpan();
+    child.endDiv();
+    return div.asSafeHtml().asString();
+  }
+
+  private String buildNumericStyles(HtmlDivBuilder div) {
+    div.style().width(12, Unit.PX).opacity(0.5).endStyle();
+    SpanBuilder span = div.startSpan();
+    span.style().marginLeft(1.5, Unit.EM).endStyle();
+    span.endSpan();
+    div.startSpan().text("x").endSpan();
+    return div.asSafeHtml().asString();
+  }
+
+  private String buildTemplates(HtmlDivBuilder div, ElementTemplate template) {
+    div.className("c");
+    template.appendTo(div, "a", "1 < 2");
+    div.startBR().endBR();
+    template.appendTo(div, "b", "2");
+    return div.asSafeHtml().asString();
+  }
+
+  private void buildTable(HtmlTableBuilder table, int rows) {
+    table.id("table").style().trustedProperty("width", "100%").endStyle();
+    TableSectionBuilder tbody = table.startTBody();
+    for (int i = 0; i < rows; i++) {
+      TableRowBuilder tr = tbody.startTR().tabIndex(i);
+      tr.startTD().className("cell").text("a < " + i).endTD();
+      tr.endTR();
+    }
+    tbody.endTBody();
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+/** Tests for {@link ElementBuilderCounters} and {@link ElementBuilderImpl#setListener}. */
+public class ElementBuilderCountersTest {
+
+  @After
+  public void tearDown() {
+    ElementBuilderImpl.setListener(null);
+  }
+
+  @Test
+  public void testCountsListenerCalls() {
+    ElementBuilderCounters counters = new ElementBuilderCounters();
+    counters.onStart("div");
+    counters.onAttribute();
+    counters.onStyleProperty();
+    counters.onText(5);
+    counters.onHtml(7);
+    counters.onEnd("div");
+    counters.onFinish(3, 2, 20);
+    counters.onFinish(1, 4, -1);
+
+    assertEquals(1, counters.getElementCount());
+    assertEquals(1, counters.getEndCount());
+    assertEquals(1, counters.getAttributeCount());
+    assertEquals(1, counters.getStylePropertyCount());
+    assertEquals(5, counters.getTextLength());
+    assertEquals(7, counters.getHtmlLength());
+    assertEquals(2, counters.getFinishCount());
+    assertEquals(4.0, counters.getRenderMillis());
+    assertEquals(6.0, counters.getFinishMillis());
+    assertEquals(4.0, counters.getMaxFinishMillis());
+    assertEquals(20L, counters.getOutputLength());
+
+    counters.reset();
+    assertEquals(0, counters.getElementCount());
+    assertEquals(0, counters.getFinishCount());
+    assertEquals(0L, counters.getOutputLength());
+  }
+
+  @Test
+  public void testCountsRender() {
+    if (!ElementBuilderImpl.INSTRUMENTATION_ENABLED) {
+      try {
+        ElementBuilderImpl.setListener(new ElementBuilderCounters());
+        fail("Expected IllegalStateException");
+      } catch (IllegalStateException expected) {
+        // Expected.
+      }
+      return;
+    }
+
+    ElementBuilderCounters counters = new ElementBuilderCounters();
+    ElementBuilderImpl.setListener(counters);
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.id("root").style().trustedColor("red").endStyle();
+    div.startSpan().text("a < b").endSpan();
+    String html = div.asSafeHtml().asString();
+
+    assertEquals(2, counters.getElementCount());
+    assertEquals(2, counters.getEndCount());
+    assertEquals(1, counters.getAttributeCount());
+    assertEquals(1, counters.getStylePropertyCount());
+    assertEquals(5, counters.getTextLength());
+    assertEquals(1, counters.getFinishCount());
+    assertEquals(html.length(), counters.getOutputLength());
+  }
+}
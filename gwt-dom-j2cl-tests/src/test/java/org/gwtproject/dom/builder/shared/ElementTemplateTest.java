@@ -0,0 +1,307 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+
+import org.junit.Test;
+
+/** Tests for {@link ElementTemplate}. */
+public class ElementTemplateTest {
+
+  private static ElementTemplate row() {
+    return ElementTemplate.record()
+        .start("tr")
+        .attribute("class", "row")
+        .attributeHole("id", "id")
+        .start("td")
+        .trustedStylePropertyHole("color", "color")
+        .trustedStyleProperty("fontWeight", "bold")
+        .textHole("name")
+        .end()
+        .start("td")
+        .textHole("id")
+        .end()
+        .compile();
+  }
+
+  @Test
+  public void testAppendAfterTextFails() {
+    ElementTemplate span = ElementTemplate.record().start("span").textHole("text").compile();
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.text("text");
+    try {
+      span.appendTo(div, "child");
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testAppendToHtmlBuilder() {
+    ElementTemplate row = row();
+    HtmlTableSectionBuilder tbody = HtmlBuilderFactory.get().createTBodyBuilder();
+    row.appendTo(tbody, "r1", "red", "a");
+    row.appendTo(tbody, "r2", "blue", "b");
+    tbody.startTR().startTD().text("built").endTD();
+    tbody.endTR();
+
+    HtmlTableSectionBuilder expected = HtmlBuilderFactory.get().createTBodyBuilder();
+    buildRow(expected, "r1", "red", "a");
+    buildRow(expected, "r2", "blue", "b");
+    expected.startTR().startTD().text("built").endTD();
+    expected.endTR();
+
+    assertEquals(expected.asSafeHtml().asString(), tbody.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testHoleIndices() {
+    ElementTemplate row = row();
+    assertEquals(3, row.getHoleCount());
+    assertEquals("id", row.getHoleName(0));
+    assertEquals(1, row.getHoleIndex("color"));
+    assertEquals(2, row.getHoleIndex("name"));
+    assertEquals(-1, row.getHoleIndex("missing"));
+  }
+
+  @Test
+  public void testInvalidTagNameFailsOnCompile() {
+    ElementTemplate.Recorder recorder = ElementTemplate.record().start("<script>");
+    try {
+      recorder.compile();
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testNoHoles() {
+    ElementTemplate template =
+        ElementTemplate.record().start("div").attribute("class", "x").end().compile();
+    assertEquals(0, template.getHoleCount());
+    assertEquals("<div class=\"x\"></div>", template.render().asString());
+  }
+
+  @Test
+  public void testOpenElementsAreEnded() {
+    ElementTemplate template = ElementTemplate.record().start("div").start("span").compile();
+    assertEquals("<div><span></span></div>", template.render().asString());
+  }
+
+  @Test
+  public void testRenderStyleHoleIsNotEscaped() {
+    ElementTemplate template =
+        ElementTemplate.record().start("div").trustedStylePropertyHole("content", "c").compile();
+    HtmlDivBuilder expected = HtmlBuilderFactory.get().createDivBuilder();
+    expected.style().trustedProperty("content", "'a&b'").endStyle();
+
+    assertEquals(expected.asSafeHtml().asString(), template.render("'a&b'").asString());
+  }
+
+  @Test
+  public void testRenderEscapesValues() {
+    ElementTemplate row = row();
+    HtmlTableRowBuilder expected = HtmlBuilderFactory.get().createTRBuilder();
+    buildRow(expected, "\"><script>", "green", "a & b");
+
+    assertEquals(
+        expected.asSafeHtml().asString(), row.render("\"><script>", "green", "a & b").asString());
+  }
+
+  @Test
+  public void testRenderMatchesBuilder() {
+    ElementTemplate row = row();
+    HtmlTableRowBuilder expected = HtmlBuilderFactory.get().createTRBuilder();
+    buildRow(expected, "r1", "red", "a");
+
+    assertEquals(expected.asSafeHtml().asString(), row.render("r1", "red", "a").asString());
+  }
+
+  @Test
+  public void testStaticOperationsAfterLastHole() {
+    ElementTemplate template =
+        ElementTemplate.record()
+            .start("div")
+            .attributeHole("id", "id")
+            .attribute("class", "x")
+            .trustedStyleProperty("color", "red")
+            .start("span")
+            .trustedStylePropertyHole("width", "width")
+            .trustedStyleProperty("fontWeight", "bold")
+            .textHole("name")
+            .end()
+            .start("b")
+            .text("static & text")
+            .end()
+            .compile();
+
+    HtmlDivBuilder expected = HtmlBuilderFactory.get().createDivBuilder();
+    expected.id("a<b").className("x").style().trustedColor("red").endStyle();
+    SpanBuilder span = expected.startSpan();
+    span.style().trustedProperty("width", "10px").trustedProperty("font-weight", "bold").endStyle();
+    span.text("n").endSpan();
+    expected.trustedStart("b").text("static & text").end();
+
+    assertEquals(expected.asSafeHtml().asString(), template.render("a<b", "10px", "n").asString());
+  }
+
+  @Test
+  public void testVoidElements() {
+    ElementTemplate template =
+        ElementTemplate.record()
+            .start("div")
+            .start("br")
+            .end()
+            .start("img")
+            .attributeHole("src", "src")
+            .attribute("alt", "")
+            .end()
+            .compile();
+
+    HtmlDivBuilder expected = HtmlBuilderFactory.get().createDivBuilder();
+    expected.startBR().end();
+    expected.startImage().src("a.png").alt("").end();
+
+    assertEquals(expected.asSafeHtml().asString(), template.render("a.png").asString());
+    assertEquals(
+        "<div><br /><img src=\"a.png\" alt=\"\" /></div>", template.render("a.png").asString());
+  }
+
+  @Test
+  public void testColElements() {
+    ElementTemplate template =
+        ElementTemplate.record()
+            .start("table")
+            .start("colgroup")
+            .start("col")
+            .attributeHole("span", "span")
+            .end()
+            .end()
+            .compile();
+
+    HtmlTableBuilder expected = HtmlBuilderFactory.get().createTableBuilder();
+    TableColBuilder colGroup = expected.startColGroup();
+    colGroup.startCol().span(2).end();
+    colGroup.end();
+
+    assertEquals(expected.asSafeHtml().asString(), template.render("2").asString());
+    assertEquals(
+        "<table><colgroup><col span=\"2\" /></colgroup></table>", template.render("2").asString());
+  }
+
+  @Test
+  public void testEndTagForbiddenMatchesTypedBuilders() {
+    // Templates start elements by tag name, so they must know which typed builders are void.
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startAnchor());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startArea());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startAudio());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startBase());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startBlockQuote());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startBody());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startBR());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startButtonInput());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startCanvas());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startCheckboxInput());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startCol());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startColGroup());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startDiv());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startDList());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startFieldSet());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startFileInput());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startForm());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startFrame());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startFrameSet());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startHead());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startHiddenInput());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startHR());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startIFrame());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startImage());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startImageInput());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startLabel());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startLegend());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startLI());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startLink());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startMap());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startMeta());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startOList());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startOptGroup());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startOption());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startParagraph());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startParam());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startPasswordInput());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startPre());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startPushButton());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startQuote());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startResetButton());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startResetInput());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startScript());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startSelect());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startSource());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startSpan());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startStyle());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startSubmitButton());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startSubmitInput());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startTable());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startTableCaption());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startTBody());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startTD());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startTextArea());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startTextInput());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startTFoot());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startTH());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startTHead());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startTitle());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startTR());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startUList());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startVideo());
+    assertEndTagForbiddenMatches(new HtmlBuilderImpl().startRadioInput("r"));
+  }
+
+  @Test
+  public void testWrongValueCountFails() {
+    ElementTemplate row = row();
+    try {
+      row.render("r1", "red");
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // Expected.
+    }
+  }
+
+  private void buildRow(TableRowBuilder tr, String id, String color, String name) {
+    tr.className("row").id(id);
+    TableCellBuilder td = tr.startTD();
+    td.style().trustedColor(color).trustedProperty("font-weight", "bold").endStyle();
+    td.text(name).endTD();
+    tr.startTD().text(id).endTD();
+    tr.endTR();
+  }
+
+  private void buildRow(TableSectionBuilder tbody, String id, String color, String name) {
+    buildRow(tbody.startTR(), id, color, name);
+  }
+
+  private static void assertEndTagForbiddenMatches(HtmlElementBuilderBase<?> builder) {
+    boolean isEndTagForbidden = builder.isEndTagForbidden();
+    String html = builder.asSafeHtml().asString();
+    String tagName = html.substring(1).split("[ />]")[0];
+    assertEquals(tagName, isEndTagForbidden, ElementRecording.isEndTagForbidden(tagName));
+  }
+}
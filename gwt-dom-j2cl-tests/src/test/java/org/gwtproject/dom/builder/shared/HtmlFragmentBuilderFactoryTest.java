@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+
+import org.junit.Test;
+
+/** Tests for {@link HtmlFragmentBuilderFactory}. */
+public class HtmlFragmentBuilderFactoryTest {
+
+  @Test
+  public void testElementFinishFails() {
+    HtmlFragmentBuilderFactory factory = new HtmlFragmentBuilderFactory();
+    DivBuilder div = factory.createDivBuilder();
+    try {
+      div.finish();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testEmptyFragment() {
+    assertEquals("", new HtmlFragmentBuilderFactory().asSafeHtml().asString());
+  }
+
+  @Test
+  public void testMultipleTopLevelElements() {
+    HtmlFragmentBuilderFactory factory = new HtmlFragmentBuilderFactory();
+    for (int r = 0; r < 3; r++) {
+      TableRowBuilder tr = factory.createTRBuilder().id("row" + r);
+      tr.startTD().text("cell" + r).endTD();
+      tr.endTR();
+    }
+    factory.createBRBuilder();
+
+    assertEquals(
+        "<tr id=\"row0\"><td>cell0</td></tr>"
+            + "<tr id=\"row1\"><td>cell1</td></tr>"
+            + "<tr id=\"row2\"><td>cell2</td></tr>"
+            + "<br />",
+        factory.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testOpenElementIsNested() {
+    HtmlFragmentBuilderFactory factory = new HtmlFragmentBuilderFactory();
+    factory.createDivBuilder();
+
+    // The div is still open, so the span becomes its child rather than a sibling.
+    factory.createSpanBuilder().endSpan();
+    factory.createSpanBuilder();
+
+    assertEquals("<div><span></span><span></span></div>", factory.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testSingleRootStillEnforced() {
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.endDiv();
+    try {
+      div.startDiv();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+  }
+}
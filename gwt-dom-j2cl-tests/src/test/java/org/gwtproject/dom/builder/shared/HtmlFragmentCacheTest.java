@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.fail;
+
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.gwtproject.safehtml.shared.SafeHtmlUtils;
+import org.junit.Test;
+
+/** Tests for {@link HtmlFragmentCache}. */
+public class HtmlFragmentCacheTest {
+
+  private int renderCount;
+
+  @Test
+  public void testRendersOnlyOnMiss() {
+    HtmlFragmentCache cache = new HtmlFragmentCache(4);
+    SafeHtml first = cache.get("ok", () -> badge("ok"));
+    SafeHtml second = cache.get("ok", () -> badge("ok"));
+    assertSame(first, second);
+    assertEquals(1, renderCount);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() {
+    HtmlFragmentCache cache = new HtmlFragmentCache(2);
+    cache.get("a", () -> badge("a"));
+    cache.get("b", () -> badge("b"));
+    // Use "a" so that "b" is the least recently used.
+    cache.get("a", () -> badge("a"));
+    cache.get("c", () -> badge("c"));
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertNotNull(cache.getIfPresent("a"));
+    assertNull(cache.getIfPresent("b"));
+    assertNotNull(cache.getIfPresent("c"));
+  }
+
+  @Test
+  public void testTemplateKeys() {
+    ElementTemplate template =
+        ElementTemplate.record().start("span").textHole("text").end().compile();
+    HtmlFragmentCache cache = new HtmlFragmentCache(8);
+    String[] values = {"<1>"};
+    SafeHtml first = cache.get(template, values);
+    assertEquals("<span>&lt;1&gt;</span>", first.asString());
+    // The key is copied, so changing the array does not change the cached key.
+    values[0] = "2";
+    assertEquals("<span>2</span>", cache.get(template, values).asString());
+    assertSame(first, cache.get(template, "<1>"));
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  public void testInsertIntoBuilder() {
+    HtmlFragmentCache cache = new HtmlFragmentCache(8);
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.startSpan().html(cache.get("icon", () -> SafeHtmlUtils.fromTrustedString("<i>&amp;</i>")));
+    assertEquals("<div><span><i>&amp;</i></span></div>", div.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    try {
+      new HtmlFragmentCache(0);
+      fail("Expected IllegalArgumentException: no entries");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+    try {
+      new HtmlFragmentCache(1).get("key", () -> null);
+      fail("Expected NullPointerException: renderer returned null");
+    } catch (NullPointerException e) {
+      // Expected.
+    }
+  }
+
+  private SafeHtml badge(String status) {
+    renderCount++;
+    HtmlSpanBuilder span = HtmlBuilderFactory.get().createSpanBuilder();
+    span.className("badge-" + status).text(status);
+    return span.asSafeHtml();
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.fail;
+
+import org.junit.Test;
+
+/** Tests for {@link HtmlPooledBuilderFactory}. */
+public class HtmlPooledBuilderFactoryTest {
+
+  @Test
+  public void testBuildersAreReused() {
+    HtmlPooledBuilderFactory factory = new HtmlPooledBuilderFactory();
+    HtmlDivBuilder first = factory.createDivBuilder();
+    first.id("first").startSpan().text("one").endSpan();
+    assertEquals("<div id=\"first\"><span>one</span></div>", first.asSafeHtml().asString());
+    assertEquals(1, factory.getIdleCount());
+
+    HtmlDivBuilder second = factory.createDivBuilder();
+    assertSame(first, second);
+    assertEquals(0, factory.getIdleCount());
+    second.title("second");
+    assertEquals("<div title=\"second\"></div>", second.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testNestedRendersUseSeparateBuilders() {
+    HtmlPooledBuilderFactory factory = new HtmlPooledBuilderFactory();
+    HtmlDivBuilder outer = factory.createDivBuilder();
+
+    // Render a fragment while the outer builder is still in use.
+    HtmlSpanBuilder inner = factory.createSpanBuilder();
+    inner.text("inner");
+    outer.html(inner.asSafeHtml());
+
+    assertEquals("<div><span>inner</span></div>", outer.asSafeHtml().asString());
+    assertEquals(2, factory.getIdleCount());
+  }
+
+  @Test
+  public void testMaxIdle() {
+    HtmlPooledBuilderFactory factory = new HtmlPooledBuilderFactory(1, 1024);
+    HtmlDivBuilder first = factory.createDivBuilder();
+    HtmlDivBuilder second = factory.createDivBuilder();
+    assertNotSame(first, second);
+
+    first.asSafeHtml();
+    second.asSafeHtml();
+    assertEquals(1, factory.getIdleCount());
+
+    // The pool is full, so this builder is dropped.
+    HtmlDivBuilder third = factory.createDivBuilder();
+    factory.createDivBuilder().asSafeHtml();
+    third.asSafeHtml();
+    assertEquals(1, factory.getIdleCount());
+  }
+
+  @Test
+  public void testLargeBufferIsReplaced() {
+    HtmlPooledBuilderFactory factory = new HtmlPooledBuilderFactory(1, 16);
+    HtmlDivBuilder div = factory.createDivBuilder();
+    for (int i = 0; i < 100; i++) {
+      div.startSpan().text("long text").endSpan();
+    }
+    div.asSafeHtml();
+
+    HtmlBuilderImpl impl = factory.impl();
+    impl.startDiv().title("next");
+    assertEquals("<div title=\"next\"></div>", impl.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testUseAfterRelease() {
+    HtmlPooledBuilderFactory factory = new HtmlPooledBuilderFactory();
+    HtmlDivBuilder released = factory.createDivBuilder();
+    DivBuilder child = released.startDiv();
+    released.asSafeHtml();
+
+    try {
+      released.asSafeHtml();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+    try {
+      released.startSpan();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+    try {
+      child.title("stale");
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+    try {
+      child.text("stale");
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // Expected.
+    }
+
+    // The next render gets the builder in a clean state.
+    HtmlSpanBuilder next = factory.createSpanBuilder();
+    next.text("next");
+    assertEquals("<span>next</span>", next.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testResetDiscardsOpenElements() {
+    HtmlPooledBuilderFactory factory = new HtmlPooledBuilderFactory();
+    HtmlDivBuilder div = factory.createDivBuilder();
+    div.startSpan().style().trustedColor("red").endStyle();
+    div.asSafeHtml();
+
+    HtmlTableRowBuilder tr = factory.createTRBuilder();
+    tr.startTD().text("cell").endTD();
+    assertEquals("<tr><td>cell</td></tr>", tr.asSafeHtml().asString());
+  }
+}
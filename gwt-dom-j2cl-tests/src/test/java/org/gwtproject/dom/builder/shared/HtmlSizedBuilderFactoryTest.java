@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+import org.junit.Test;
+
+/** Tests for {@link HtmlSizedBuilderFactory}. */
+public class HtmlSizedBuilderFactoryTest {
+
+  @Test
+  public void testFixedCapacity() {
+    HtmlSizedBuilderFactory factory = new HtmlSizedBuilderFactory(64);
+    assertFalse(factory.isAdaptive());
+    assertEquals("<div><span>a</span></div>", render(factory, 1));
+    assertEquals(64, factory.getCapacity());
+  }
+
+  @Test
+  public void testAdaptiveCapacityGrows() {
+    HtmlSizedBuilderFactory factory = new HtmlSizedBuilderFactory(0, true);
+    assertTrue(factory.isAdaptive());
+    int length = render(factory, 100).length();
+    assertTrue(factory.getCapacity() >= length);
+    assertTrue(factory.getCapacity() < length * 2);
+  }
+
+  @Test
+  public void testAdaptiveCapacityShrinksSlowly() {
+    HtmlSizedBuilderFactory factory = new HtmlSizedBuilderFactory(0, true);
+    render(factory, 100);
+    int large = factory.getCapacity();
+    int small = render(factory, 1).length();
+    assertTrue(factory.getCapacity() < large);
+    assertTrue(factory.getCapacity() > small);
+    for (int i = 0; i < 100; i++) {
+      render(factory, 1);
+    }
+    assertEquals(small + (small >> 4), factory.getCapacity(), 8);
+  }
+
+  @Test
+  public void testAdaptiveWriteTo() {
+    HtmlSizedBuilderFactory factory = new HtmlSizedBuilderFactory(0, true);
+    HtmlDivBuilder div = factory.createDivBuilder();
+    div.text("text");
+    StringBuilder sb = new StringBuilder();
+    div.writeTo(sb);
+    assertTrue(factory.getCapacity() >= sb.length());
+  }
+
+  @Test
+  public void testNegativeCapacity() {
+    try {
+      new HtmlSizedBuilderFactory(-1);
+      fail("Expected IllegalArgumentException: negative capacity");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+
+  private static String render(HtmlSizedBuilderFactory factory, int spans) {
+    HtmlDivBuilder div = factory.createDivBuilder();
+    for (int i = 0; i < spans; i++) {
+      div.startSpan().text("a").endSpan();
+    }
+    return div.asSafeHtml().asString();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+import org.junit.Test;
+
+/** Tests for {@link HtmlStreamingBuilderFactory}. */
+public class HtmlStreamingBuilderFactoryTest {
+
+  @Test
+  public void testFlushWritesAllMarkup() {
+    StringBuilder out = new StringBuilder();
+    HtmlStreamingBuilderFactory factory = new HtmlStreamingBuilderFactory(out);
+    HtmlDivBuilder div = factory.createDivBuilder();
+    div.id("root");
+    div.startSpan().text("a < b").endSpan();
+    div.startBR().endBR();
+    div.flush();
+
+    assertEquals("<div id=\"root\"><span>a &lt; b</span><br /></div>", out.toString());
+  }
+
+  @Test
+  public void testMatchesBufferedOutput() {
+    StringBuilder out = new StringBuilder();
+    HtmlTableBuilder streamed = new HtmlStreamingBuilderFactory(out, 0).createTableBuilder();
+    buildTable(streamed);
+    streamed.flush();
+
+    HtmlTableBuilder buffered = HtmlBuilderFactory.get().createTableBuilder();
+    buildTable(buffered);
+
+    assertEquals(buffered.asSafeHtml().asString(), out.toString());
+  }
+
+  @Test
+  public void testStreamsCompletedSubtrees() {
+    StringBuilder out = new StringBuilder();
+    HtmlStreamingBuilderFactory factory = new HtmlStreamingBuilderFactory(out, 0);
+    HtmlDivBuilder div = factory.createDivBuilder();
+    div.startSpan().text("first").endSpan();
+
+    // The ended span is written, the open div start tag is complete as well.
+    assertEquals("<div><span>first</span>", out.toString());
+
+    // An open start tag is never written, attributes can still be added.
+    div.startSpan().id("second");
+    assertEquals("<div><span>first</span>", out.toString());
+
+    div.flush();
+    assertEquals("<div><span>first</span><span id=\"second\"></span></div>", out.toString());
+  }
+
+  @Test
+  public void testThresholdBuffersSmallOutput() {
+    StringBuilder out = new StringBuilder();
+    HtmlDivBuilder div = new HtmlStreamingBuilderFactory(out, 1024).createDivBuilder();
+    div.startSpan().text("buffered").endSpan();
+    assertEquals("", out.toString());
+
+    div.flush();
+    assertTrue(out.toString().contains("buffered"));
+  }
+
+  @Test
+  public void testAsSafeHtmlNotSupported() {
+    HtmlDivBuilder div = new HtmlStreamingBuilderFactory(new StringBuilder()).createDivBuilder();
+    try {
+      div.asSafeHtml();
+      fail("Expected IllegalStateException: asSafeHtml() on a streaming builder");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testFlushNotSupportedWhenBuffered() {
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    try {
+      div.flush();
+      fail("Expected IllegalStateException: flush() on a buffered builder");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  private void buildTable(TableBuilder table) {
+    table.id("table");
+    TableSectionBuilder tbody = table.startTBody();
+    for (int r = 0; r < 20; r++) {
+      TableRowBuilder tr = tbody.startTR().className("row");
+      for (int c = 0; c < 5; c++) {
+        tr.startTD().text(r + ":" + c).endTD();
+      }
+      tr.endTR();
+    }
+    tbody.endTBody();
+  }
+}
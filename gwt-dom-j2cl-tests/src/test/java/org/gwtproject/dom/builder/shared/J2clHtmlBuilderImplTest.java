@@ -15,9 +15,127 @@
  */
 package org.gwtproject.dom.builder.shared;
 
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+
+import org.gwtproject.safehtml.shared.SafeHtmlUtils;
+import org.junit.Test;
+
 /** Tests for {@link HtmlBuilderImpl}. */
 public class J2clHtmlBuilderImplTest extends J2clElementBuilderImplTestBase {
 
+  @Test
+  public void testAsCharSequence() {
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.id("a").startSpan().text("b");
+    CharSequence html = div.asCharSequence();
+    assertEquals("<div id=\"a\"><span>b</span></div>", html.toString());
+    assertEquals(html.toString().length(), html.length());
+    assertEquals('<', html.charAt(0));
+    assertEquals("<span>", html.subSequence(12, 18).toString());
+  }
+
+  @Test
+  public void testEscapeAllEntities() {
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.text("a&b<c>d\"e'f");
+    assertEquals("<div>a&amp;b&lt;c&gt;d&quot;e&#39;f</div>", div.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testEscapeAtFirstAndLastPosition() {
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.title("'quoted'").text("<b>");
+    assertEquals("<div title=\"&#39;quoted&#39;\">&lt;b&gt;</div>", div.asSafeHtml().asString());
+
+    div = HtmlBuilderFactory.get().createDivBuilder();
+    div.text("&");
+    assertEquals("<div>&amp;</div>", div.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testEscapeAttributeNameAndValue() {
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.attribute("data-<x>", "\"a\" & 'b'");
+    assertEquals(
+        "<div data-&lt;x&gt;=\"&quot;a&quot; &amp; &#39;b&#39;\"></div>",
+        div.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testEscapeNothingToEscape() {
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.attribute("data-plain", "no entities here").text("Plain text, 100% safe.");
+    assertEquals(
+        "<div data-plain=\"no entities here\">Plain text, 100% safe.</div>",
+        div.asSafeHtml().asString());
+
+    div = HtmlBuilderFactory.get().createDivBuilder();
+    div.title("").text("");
+    assertEquals("<div title=\"\"></div>", div.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testEscapeMatchesSafeHtmlUtils() {
+    String text = "<a href=\"x?a=1&b='2'\">link</a> & more >";
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.text(text);
+    assertEquals("<div>" + SafeHtmlUtils.htmlEscape(text) + "</div>", div.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testHtmlFromBuilder() {
+    HtmlSpanBuilder child = HtmlBuilderFactory.get().createSpanBuilder();
+    child.className("c").text("<b>");
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.html(child).endDiv();
+    assertEquals("<div><span class=\"c\">&lt;b&gt;</span></div>", div.asSafeHtml().asString());
+  }
+
+  @Test
+  public void testHtmlFromBuilderAfterContent() {
+    HtmlSpanBuilder child = HtmlBuilderFactory.get().createSpanBuilder();
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.text("text");
+    try {
+      div.html(child);
+      fail("Expected IllegalStateException: html set after text");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testHtmlFromItself() {
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    try {
+      div.html(div);
+      fail("Expected IllegalArgumentException: builder spliced into itself");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testWriteTo() {
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.startSpan().text("a & b");
+    StringBuilder sb = new StringBuilder("<p>");
+    div.writeTo(sb);
+    assertEquals("<p><div><span>a &amp; b</span></div>", sb.toString());
+  }
+
+  @Test
+  public void testWriteToStreamed() {
+    HtmlDivBuilder div = new HtmlStreamingBuilderFactory(new StringBuilder()).createDivBuilder();
+    try {
+      div.writeTo(new StringBuilder());
+      fail("Expected IllegalStateException: writeTo() on a streaming builder");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
   @Override
   protected ElementBuilderFactory getElementBuilderFactory() {
     return HtmlBuilderFactory.get();
@@ -17,6 +17,10 @@ package org.gwtproject.dom.builder.shared;
 
 import static junit.framework.TestCase.assertEquals;
 
+import org.gwtproject.dom.style.shared.Unit;
+import org.gwtproject.safecss.shared.SafeStylesUtils;
+import org.junit.Test;
+
 /** Gwt tests for {@link HtmlStylesBuilder}. */
 public class J2clHtmlStylesBuilderTest extends J2clStylesBuilderTestBase {
 
@@ -30,6 +34,39 @@ public class J2clHtmlStylesBuilderTest extends J2clStylesBuilderTestBase {
         "already-hyphenated-twice", HtmlStylesBuilder.toHyphenatedForm("already-hyphenated-twice"));
   }
 
+  @Test
+  public void testToHyphenatedFormCustomNames() {
+    // Known properties come from the table, custom names are converted and cached.
+    assertEquals("background-color", HtmlStylesBuilder.toHyphenatedForm("backgroundColor"));
+    assertEquals("list-style-type", HtmlStylesBuilder.toHyphenatedForm("listStyleType"));
+    for (int i = 0; i < 2; i++) {
+      assertEquals("my-custom-prop", HtmlStylesBuilder.toHyphenatedForm("myCustomProp"));
+      assertEquals("-moz-box-sizing", HtmlStylesBuilder.toHyphenatedForm("MozBoxSizing"));
+      assertEquals("x-y-z", HtmlStylesBuilder.toHyphenatedForm("xYZ"));
+    }
+    // Characters before the first letter are dropped.
+    assertEquals("foo-bar", HtmlStylesBuilder.toHyphenatedForm("_fooBar"));
+  }
+
+  @Test
+  public void testNumericPropertiesMatchSafeStyles() {
+    HtmlDivBuilder div = HtmlBuilderFactory.get().createDivBuilder();
+    div.style()
+        .width(12, Unit.PX)
+        .marginLeft(1.5, Unit.EM)
+        .opacity(0.25)
+        .trustedProperty("paddingTop", -3, Unit.PCT)
+        .endStyle();
+    String expected =
+        SafeStylesUtils.fromTrustedNameAndValue("width", 12.0 + Unit.PX.getType()).asString()
+            + SafeStylesUtils.fromTrustedNameAndValue("margin-left", 1.5 + Unit.EM.getType())
+                .asString()
+            + SafeStylesUtils.forOpacity(0.25).asString()
+            + SafeStylesUtils.fromTrustedNameAndValue("padding-top", -3.0 + Unit.PCT.getType())
+                .asString();
+    assertEquals("<div style=\"" + expected + "\"></div>", div.asSafeHtml().asString());
+  }
+
   @Override
   protected ElementBuilderFactory getElementBuilderFactory() {
     return HtmlBuilderFactory.get();
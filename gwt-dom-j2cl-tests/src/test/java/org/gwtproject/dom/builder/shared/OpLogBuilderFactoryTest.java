@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+import org.gwtproject.dom.style.shared.Unit;
+import org.gwtproject.safehtml.shared.SafeHtmlUtils;
+import org.junit.Test;
+
+/** Tests for {@link OpLogBuilderFactory} and {@link ElementOpLog}. */
+public class OpLogBuilderFactoryTest {
+
+  @Test
+  public void testPlaysBackToSameHtml() {
+    OpLogBuilderFactory factory = new OpLogBuilderFactory();
+    HtmlDivBuilder div = factory.createDivBuilder();
+    div.id("root").className("list").style().width(10, Unit.PX).trustedColor("red").endStyle();
+    div.startSpan().title("été & <more>").text("text").endSpan();
+    div.startDiv().html(SafeHtmlUtils.fromTrustedString("<b>bold</b>")).endDiv();
+    div.startTextInput().attribute("data-row", 7).endInput();
+    div.startBR().endBR();
+    ElementOpLog log = factory.finishOpLog();
+    String expected = div.asSafeHtml().asString();
+
+    assertEquals(expected, log.toSafeHtml().asString());
+    ElementOpLog read = ElementOpLog.fromBytes(log.toBytes());
+    assertEquals(expected, read.toSafeHtml().asString());
+    assertEquals(log.getOpCount(), read.getOpCount());
+    assertEquals(log.getStringCount(), read.getStringCount());
+  }
+
+  @Test
+  public void testColElementsHaveNoEndTag() {
+    OpLogBuilderFactory factory = new OpLogBuilderFactory();
+    HtmlTableBuilder table = factory.createTableBuilder();
+    TableColBuilder colGroup = table.startColGroup();
+    colGroup.startCol().span(2).endCol();
+    colGroup.endColGroup();
+    ElementOpLog log = factory.finishOpLog();
+    String expected = "<table><colgroup><col span=\"2\" /></colgroup></table>";
+
+    assertEquals(expected, table.asSafeHtml().asString());
+    assertEquals(expected, log.toSafeHtml().asString());
+  }
+
+  @Test
+  public void testTemplatesAreLogged() {
+    ElementTemplate template =
+        ElementTemplate.record().start("div").attributeHole("id", "id").textHole("text").compile();
+    OpLogBuilderFactory factory = new OpLogBuilderFactory();
+    HtmlDivBuilder div = factory.createDivBuilder();
+    template.appendTo(div, "a", "hello");
+    template.appendTo(div, "b", "<world>");
+    ElementOpLog log = factory.finishOpLog();
+    String expected = "<div><div id=\"a\">hello</div><div id=\"b\">&lt;world&gt;</div></div>";
+
+    assertEquals(expected, div.asSafeHtml().asString());
+    assertEquals(expected, log.toSafeHtml().asString());
+  }
+
+  @Test
+  public void testRepeatedStringsAreStoredOnce() {
+    OpLogBuilderFactory factory = new OpLogBuilderFactory();
+    HtmlTableBuilder table = factory.createTableBuilder();
+    TableSectionBuilder tbody = table.startTBody();
+    for (int r = 0; r < 200; r++) {
+      TableRowBuilder tr = tbody.startTR().className("row");
+      for (int c = 0; c < 5; c++) {
+        tr.startTD().className("cell").text("x").endTD();
+      }
+      tr.endTR();
+    }
+    ElementOpLog log = factory.finishOpLog();
+    // Only "row", "cell" and "x" are not known names.
+    assertEquals(3, log.getStringCount());
+    byte[] bytes = log.toBytes();
+    String html = table.asSafeHtml().asString();
+    assertTrue(bytes.length * 2 < html.length());
+    assertEquals(html, ElementOpLog.fromBytes(bytes).toSafeHtml().asString());
+  }
+
+  @Test
+  public void testFinishOpLogWithoutBuilder() {
+    OpLogBuilderFactory factory = new OpLogBuilderFactory();
+    factory.createDivBuilder();
+    factory.finishOpLog();
+    try {
+      factory.finishOpLog();
+      fail("Expected IllegalStateException: no builder");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testInvalidBytes() {
+    OpLogBuilderFactory factory = new OpLogBuilderFactory();
+    factory.createDivBuilder().text("text");
+    byte[] bytes = factory.finishOpLog().toBytes();
+    assertInvalid(new byte[0]);
+    assertInvalid(new byte[] {'G', 'B', (byte) (ElementOpLog.VERSION + 1)});
+    byte[] truncated = new byte[bytes.length - 1];
+    System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+    assertInvalid(truncated);
+    byte[] extra = new byte[bytes.length + 1];
+    System.arraycopy(bytes, 0, extra, 0, bytes.length);
+    assertInvalid(extra);
+  }
+
+  private static void assertInvalid(byte[] bytes) {
+    try {
+      ElementOpLog.fromBytes(bytes);
+      fail("Expected IllegalArgumentException: invalid op log");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+
+import org.junit.Test;
+
+/** Tests for {@link ReconcilingBuilderFactory}. */
+public class ReconcilingBuilderFactoryTest {
+
+  @Test
+  public void testNullTarget() {
+    try {
+      new ReconcilingBuilderFactory(null);
+      fail("Expected NullPointerException");
+    } catch (NullPointerException expected) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testRecordsAllOperations() {
+    ReconcilingBuilderImpl impl = new ReconcilingBuilderImpl(null);
+    HtmlDivBuilder div = impl.startDiv();
+    div.id("root").style().trustedProperty("width", "10px").endStyle();
+    div.startSpan().attribute("data-key", 1).text("a < b").endSpan();
+    div.startBR().endBR();
+    div.endDiv();
+
+    ElementRecording recording = impl.getRecording();
+    int[] ops = {
+      ElementRecording.START,
+      ElementRecording.ATTRIBUTE,
+      ElementRecording.STYLE,
+      ElementRecording.START,
+      ElementRecording.ATTRIBUTE,
+      ElementRecording.TEXT,
+      ElementRecording.END,
+      ElementRecording.START,
+      ElementRecording.END,
+      ElementRecording.END
+    };
+    assertEquals(ops.length, recording.size());
+    for (int i = 0; i < ops.length; i++) {
+      assertEquals(ops[i], recording.getOp(i));
+    }
+    assertEquals("width", recording.getName(2));
+    assertEquals("10px", recording.getValue(2));
+    assertEquals("1", recording.getValue(4));
+    assertEquals("a < b", recording.getValue(5));
+
+    // The HTML is generated as usual.
+    assertEquals(
+        "<div id=\"root\" style=\"width:10px;\"><span data-key=\"1\">a &lt; b</span><br /></div>",
+        div.asSafeHtml().asString());
+  }
+}
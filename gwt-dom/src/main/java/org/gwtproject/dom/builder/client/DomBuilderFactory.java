@@ -20,7 +20,15 @@ import org.gwtproject.dom.builder.shared.ElementBuilderFactory;
 import org.gwtproject.dom.builder.shared.InputBuilder;
 import org.gwtproject.dom.builder.shared.TableColBuilder;
 
-/** Factory for creating element builders that construct elements using DOM manipulation. */
+/**
+ * Factory for creating element builders that construct elements using DOM manipulation.
+ *
+ * <p>Elements are always built detached from the document: the root element is created on its own
+ * and its descendants are appended to it, so building does not trigger style recalculation or
+ * layout. Attach the finished element with a single insertion. Use {@link
+ * DomFragmentBuilderFactory} to build several sibling elements into one {@link
+ * org.gwtproject.dom.client.DocumentFragment}, and to insert them into a live parent in one step.
+ */
 public class DomBuilderFactory extends ElementBuilderFactory {
 
   private static DomBuilderFactory instance;
@@ -389,7 +397,8 @@ public class DomBuilderFactory extends ElementBuilderFactory {
     return impl().trustedStart(tagName);
   }
 
-  private DomBuilderImpl impl() {
+  /** Create the implementation that backs a new builder. */
+  DomBuilderImpl impl() {
     return new DomBuilderImpl();
   }
 }
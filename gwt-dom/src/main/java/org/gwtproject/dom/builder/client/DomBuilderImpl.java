@@ -87,14 +87,38 @@ class DomBuilderImpl extends ElementBuilderImpl {
   /** The root element of the DOM structure being built. */
   private Element rootElement;
 
-  /** The element at the top of the stack. We use DOM manipulation to move up and down the stack. */
+  /** The element at the top of the stack. */
   private Element currentElement;
 
+  /*
+   * The open elements, from the root to the current element. The builder keeps
+   * its own parent chain so that it never has to read it back from the DOM.
+   */
+  private Element[] openElements = new Element[16];
+  private int openElementCount;
+
+  /** The fragment that top level elements are appended to, or null if there is one root. */
+  private final DocumentFragment fragment;
+
+  DomBuilderImpl() {
+    this(null);
+  }
+
+  /**
+   * Construct a builder that appends its top level elements to a fragment.
+   *
+   * @param fragment the fragment, or null to build a single root element
+   */
+  DomBuilderImpl(DocumentFragment fragment) {
+    super(fragment != null);
+    this.fragment = fragment;
+  }
+
   public DomAnchorBuilder startAnchor() {
     if (anchorBuilder == null) {
       anchorBuilder = new DomAnchorBuilder(this);
     }
-    start(Document.get().createAnchorElement(), anchorBuilder);
+    start(Document.get().createAnchorElement(), AnchorElement.TAG, anchorBuilder);
     return anchorBuilder;
   }
 
@@ -102,7 +126,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (areaBuilder == null) {
       areaBuilder = new DomAreaBuilder(this);
     }
-    start(Document.get().createAreaElement(), areaBuilder);
+    start(Document.get().createAreaElement(), AreaElement.TAG, areaBuilder);
     return areaBuilder;
   }
 
@@ -110,7 +134,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (audioBuilder == null) {
       audioBuilder = new DomAudioBuilder(this);
     }
-    start(Document.get().createAudioElement(), audioBuilder);
+    start(Document.get().createAudioElement(), AudioElement.TAG, audioBuilder);
     return audioBuilder;
   }
 
@@ -118,19 +142,19 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (baseBuilder == null) {
       baseBuilder = new DomBaseBuilder(this);
     }
-    start(Document.get().createBaseElement(), baseBuilder);
+    start(Document.get().createBaseElement(), BaseElement.TAG, baseBuilder);
     return baseBuilder;
   }
 
   public DomQuoteBuilder startBlockQuote() {
-    return startQuote(Document.get().createBlockQuoteElement());
+    return startQuote(Document.get().createBlockQuoteElement(), QuoteElement.TAG_BLOCKQUOTE);
   }
 
   public DomBodyBuilder startBody() {
     if (bodyBuilder == null) {
       bodyBuilder = new DomBodyBuilder(this);
     }
-    start(Document.get().createElement("body"), bodyBuilder);
+    start(Document.get().createElement("body"), BodyElement.TAG, bodyBuilder);
     return bodyBuilder;
   }
 
@@ -138,7 +162,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (brBuilder == null) {
       brBuilder = new DomBRBuilder(this);
     }
-    start(Document.get().createBRElement(), brBuilder);
+    start(Document.get().createBRElement(), BRElement.TAG, brBuilder);
     return brBuilder;
   }
 
@@ -150,7 +174,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (canvasBuilder == null) {
       canvasBuilder = new DomCanvasBuilder(this);
     }
-    start(Document.get().createCanvasElement(), canvasBuilder);
+    start(Document.get().createCanvasElement(), CanvasElement.TAG, canvasBuilder);
     return canvasBuilder;
   }
 
@@ -162,7 +186,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (tableColBuilder == null) {
       tableColBuilder = new DomTableColBuilder(this, false);
     }
-    start(Document.get().createColElement(), tableColBuilder);
+    start(Document.get().createColElement(), TableColElement.TAG_COL, tableColBuilder);
     return tableColBuilder;
   }
 
@@ -170,12 +194,15 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (tableColGroupBuilder == null) {
       tableColGroupBuilder = new DomTableColBuilder(this, true);
     }
-    start(Document.get().createColGroupElement(), tableColGroupBuilder);
+    start(
+        Document.get().createColGroupElement(),
+        TableColElement.TAG_COLGROUP,
+        tableColGroupBuilder);
     return tableColGroupBuilder;
   }
 
   public DomDivBuilder startDiv() {
-    start(Document.get().createDivElement(), divBuilder);
+    start(Document.get().createDivElement(), DivElement.TAG, divBuilder);
     return divBuilder;
   }
 
@@ -183,7 +210,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (dListBuilder == null) {
       dListBuilder = new DomDListBuilder(this);
     }
-    start(Document.get().createDLElement(), dListBuilder);
+    start(Document.get().createDLElement(), DListElement.TAG, dListBuilder);
     return dListBuilder;
   }
 
@@ -191,7 +218,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (fieldSetBuilder == null) {
       fieldSetBuilder = new DomFieldSetBuilder(this);
     }
-    start(Document.get().createFieldSetElement(), fieldSetBuilder);
+    start(Document.get().createFieldSetElement(), FieldSetElement.TAG, fieldSetBuilder);
     return fieldSetBuilder;
   }
 
@@ -203,7 +230,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (formBuilder == null) {
       formBuilder = new DomFormBuilder(this);
     }
-    start(Document.get().createFormElement(), formBuilder);
+    start(Document.get().createFormElement(), FormElement.TAG, formBuilder);
     return formBuilder;
   }
 
@@ -211,7 +238,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (frameBuilder == null) {
       frameBuilder = new DomFrameBuilder(this);
     }
-    start(Document.get().createFrameElement(), frameBuilder);
+    start(Document.get().createFrameElement(), FrameElement.TAG, frameBuilder);
     return frameBuilder;
   }
 
@@ -219,39 +246,39 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (frameSetBuilder == null) {
       frameSetBuilder = new DomFrameSetBuilder(this);
     }
-    start(Document.get().createFrameSetElement(), frameSetBuilder);
+    start(Document.get().createFrameSetElement(), FrameSetElement.TAG, frameSetBuilder);
     return frameSetBuilder;
   }
 
   public DomHeadingBuilder startH1() {
-    return startHeading(1);
+    return startHeading(1, HeadingElement.TAG_H1);
   }
 
   public DomHeadingBuilder startH2() {
-    return startHeading(2);
+    return startHeading(2, HeadingElement.TAG_H2);
   }
 
   public DomHeadingBuilder startH3() {
-    return startHeading(3);
+    return startHeading(3, HeadingElement.TAG_H3);
   }
 
   public DomHeadingBuilder startH4() {
-    return startHeading(4);
+    return startHeading(4, HeadingElement.TAG_H4);
   }
 
   public DomHeadingBuilder startH5() {
-    return startHeading(5);
+    return startHeading(5, HeadingElement.TAG_H5);
   }
 
   public DomHeadingBuilder startH6() {
-    return startHeading(6);
+    return startHeading(6, HeadingElement.TAG_H6);
   }
 
   public DomHeadBuilder startHead() {
     if (headBuilder == null) {
       headBuilder = new DomHeadBuilder(this);
     }
-    start(Document.get().createHeadElement(), headBuilder);
+    start(Document.get().createHeadElement(), HeadElement.TAG, headBuilder);
     return headBuilder;
   }
 
@@ -263,7 +290,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (hrBuilder == null) {
       hrBuilder = new DomHRBuilder(this);
     }
-    start(Document.get().createHRElement(), hrBuilder);
+    start(Document.get().createHRElement(), HRElement.TAG, hrBuilder);
     return hrBuilder;
   }
 
@@ -271,7 +298,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (iFrameBuilder == null) {
       iFrameBuilder = new DomIFrameBuilder(this);
     }
-    start(Document.get().createIFrameElement(), iFrameBuilder);
+    start(Document.get().createIFrameElement(), IFrameElement.TAG, iFrameBuilder);
     return iFrameBuilder;
   }
 
@@ -279,7 +306,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (imageBuilder == null) {
       imageBuilder = new DomImageBuilder(this);
     }
-    start(Document.get().createImageElement(), imageBuilder);
+    start(Document.get().createImageElement(), ImageElement.TAG, imageBuilder);
     return imageBuilder;
   }
 
@@ -289,7 +316,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
 
   /** Start an input using the specified InputElement. */
   public DomInputBuilder startInput(InputElement input) {
-    start(input, inputBuilder);
+    start(input, InputElement.TAG, inputBuilder);
     return inputBuilder;
   }
 
@@ -297,7 +324,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (labelBuilder == null) {
       labelBuilder = new DomLabelBuilder(this);
     }
-    start(Document.get().createLabelElement(), labelBuilder);
+    start(Document.get().createLabelElement(), LabelElement.TAG, labelBuilder);
     return labelBuilder;
   }
 
@@ -305,12 +332,12 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (legendBuilder == null) {
       legendBuilder = new DomLegendBuilder(this);
     }
-    start(Document.get().createLegendElement(), legendBuilder);
+    start(Document.get().createLegendElement(), LegendElement.TAG, legendBuilder);
     return legendBuilder;
   }
 
   public DomLIBuilder startLI() {
-    start(Document.get().createLIElement(), liBuilder);
+    start(Document.get().createLIElement(), LIElement.TAG, liBuilder);
     return liBuilder;
   }
 
@@ -318,7 +345,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (linkBuilder == null) {
       linkBuilder = new DomLinkBuilder(this);
     }
-    start(Document.get().createLinkElement(), linkBuilder);
+    start(Document.get().createLinkElement(), LinkElement.TAG, linkBuilder);
     return linkBuilder;
   }
 
@@ -326,7 +353,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (mapBuilder == null) {
       mapBuilder = new DomMapBuilder(this);
     }
-    start(Document.get().createMapElement(), mapBuilder);
+    start(Document.get().createMapElement(), MapElement.TAG, mapBuilder);
     return mapBuilder;
   }
 
@@ -334,7 +361,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (metaBuilder == null) {
       metaBuilder = new DomMetaBuilder(this);
     }
-    start(Document.get().createMetaElement(), metaBuilder);
+    start(Document.get().createMetaElement(), MetaElement.TAG, metaBuilder);
     return metaBuilder;
   }
 
@@ -342,7 +369,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (oListBuilder == null) {
       oListBuilder = new DomOListBuilder(this);
     }
-    start(Document.get().createOLElement(), oListBuilder);
+    start(Document.get().createOLElement(), OListElement.TAG, oListBuilder);
     return oListBuilder;
   }
 
@@ -350,12 +377,12 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (optGroupBuilder == null) {
       optGroupBuilder = new DomOptGroupBuilder(this);
     }
-    start(Document.get().createOptGroupElement(), optGroupBuilder);
+    start(Document.get().createOptGroupElement(), OptGroupElement.TAG, optGroupBuilder);
     return optGroupBuilder;
   }
 
   public DomOptionBuilder startOption() {
-    start(Document.get().createOptionElement(), optionBuilder);
+    start(Document.get().createOptionElement(), OptionElement.TAG, optionBuilder);
     return optionBuilder;
   }
 
@@ -363,7 +390,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (paragraphBuilder == null) {
       paragraphBuilder = new DomParagraphBuilder(this);
     }
-    start(Document.get().createPElement(), paragraphBuilder);
+    start(Document.get().createPElement(), ParagraphElement.TAG, paragraphBuilder);
     return paragraphBuilder;
   }
 
@@ -371,7 +398,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (paramBuilder == null) {
       paramBuilder = new DomParamBuilder(this);
     }
-    start(Document.get().createParamElement(), paramBuilder);
+    start(Document.get().createParamElement(), ParamElement.TAG, paramBuilder);
     return paramBuilder;
   }
 
@@ -383,7 +410,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (preBuilder == null) {
       preBuilder = new DomPreBuilder(this);
     }
-    start(Document.get().createPreElement(), preBuilder);
+    start(Document.get().createPreElement(), PreElement.TAG, preBuilder);
     return preBuilder;
   }
 
@@ -392,7 +419,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
   }
 
   public DomQuoteBuilder startQuote() {
-    return startQuote(Document.get().createQElement());
+    return startQuote(Document.get().createQElement(), QuoteElement.TAG_Q);
   }
 
   public InputBuilder startRadioInput(String name) {
@@ -411,7 +438,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (scriptBuilder == null) {
       scriptBuilder = new DomScriptBuilder(this);
     }
-    start(Document.get().createScriptElement(), scriptBuilder);
+    start(Document.get().createScriptElement(), ScriptElement.TAG, scriptBuilder);
     return scriptBuilder;
   }
 
@@ -419,7 +446,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (selectBuilder == null) {
       selectBuilder = new DomSelectBuilder(this);
     }
-    start(Document.get().createSelectElement(), selectBuilder);
+    start(Document.get().createSelectElement(), SelectElement.TAG, selectBuilder);
     return selectBuilder;
   }
 
@@ -427,12 +454,12 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (sourceBuilder == null) {
       sourceBuilder = new DomSourceBuilder(this);
     }
-    start(Document.get().createSourceElement(), sourceBuilder);
+    start(Document.get().createSourceElement(), SourceElement.TAG, sourceBuilder);
     return sourceBuilder;
   }
 
   public DomSpanBuilder startSpan() {
-    start(Document.get().createSpanElement(), spanBuilder);
+    start(Document.get().createSpanElement(), SpanElement.TAG, spanBuilder);
     return spanBuilder;
   }
 
@@ -440,7 +467,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (styleBuilder == null) {
       styleBuilder = new DomStyleBuilder(this);
     }
-    start(Document.get().createStyleElement(), styleBuilder);
+    start(Document.get().createStyleElement(), StyleElement.TAG, styleBuilder);
     return styleBuilder;
   }
 
@@ -456,7 +483,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (tableBuilder == null) {
       tableBuilder = new DomTableBuilder(this);
     }
-    start(Document.get().createTableElement(), tableBuilder);
+    start(Document.get().createTableElement(), TableElement.TAG, tableBuilder);
     return tableBuilder;
   }
 
@@ -464,16 +491,16 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (tableCaptionBuilder == null) {
       tableCaptionBuilder = new DomTableCaptionBuilder(this);
     }
-    start(Document.get().createCaptionElement(), tableCaptionBuilder);
+    start(Document.get().createCaptionElement(), TableCaptionElement.TAG, tableCaptionBuilder);
     return tableCaptionBuilder;
   }
 
   public DomTableSectionBuilder startTBody() {
-    return startTableSection(Document.get().createTBodyElement());
+    return startTableSection(Document.get().createTBodyElement(), TableSectionElement.TAG_TBODY);
   }
 
   public DomTableCellBuilder startTD() {
-    start(Document.get().createTDElement(), tableCellBuilder);
+    start(Document.get().createTDElement(), TableCellElement.TAG_TD, tableCellBuilder);
     return tableCellBuilder;
   }
 
@@ -481,25 +508,25 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (textAreaBuilder == null) {
       textAreaBuilder = new DomTextAreaBuilder(this);
     }
-    start(Document.get().createTextAreaElement(), textAreaBuilder);
+    start(Document.get().createTextAreaElement(), TextAreaElement.TAG, textAreaBuilder);
     return textAreaBuilder;
   }
 
   public DomTableSectionBuilder startTFoot() {
-    return startTableSection(Document.get().createTFootElement());
+    return startTableSection(Document.get().createTFootElement(), TableSectionElement.TAG_TFOOT);
   }
 
   public DomTableCellBuilder startTH() {
-    start(Document.get().createTHElement(), tableCellBuilder);
+    start(Document.get().createTHElement(), TableCellElement.TAG_TH, tableCellBuilder);
     return tableCellBuilder;
   }
 
   public DomTableSectionBuilder startTHead() {
-    return startTableSection(Document.get().createTHeadElement());
+    return startTableSection(Document.get().createTHeadElement(), TableSectionElement.TAG_THEAD);
   }
 
   public DomTableRowBuilder startTR() {
-    start(Document.get().createTRElement(), tableRowBuilder);
+    start(Document.get().createTRElement(), TableRowElement.TAG, tableRowBuilder);
     return tableRowBuilder;
   }
 
@@ -507,7 +534,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (uListBuilder == null) {
       uListBuilder = new DomUListBuilder(this);
     }
-    start(Document.get().createULElement(), uListBuilder);
+    start(Document.get().createULElement(), UListElement.TAG, uListBuilder);
     return uListBuilder;
   }
 
@@ -515,10 +542,33 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (videoBuilder == null) {
       videoBuilder = new DomVideoBuilder(this);
     }
-    start(Document.get().createVideoElement(), videoBuilder);
+    start(Document.get().createVideoElement(), VideoElement.TAG, videoBuilder);
     return videoBuilder;
   }
 
+  /**
+   * End all open elements of the fragment.
+   *
+   * @return the fragment that holds all top level elements
+   */
+  public DocumentFragment finishFragment() {
+    long finishNanos = isInstrumented() ? System.nanoTime() : 0;
+    onFinishFragment();
+    onFinished(finishNanos);
+    return fragment;
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    rootElement = null;
+    currentElement = null;
+    for (int i = 0; i < openElementCount; i++) {
+      openElements[i] = null;
+    }
+    openElementCount = 0;
+  }
+
   @Override
   public StylesBuilder style() {
     return stylesBuilder;
@@ -531,7 +581,7 @@ class DomBuilderImpl extends ElementBuilderImpl {
      * IllegalArgumentException.
      */
     assertValidTagName(tagName);
-    start(Document.get().createElement(tagName), elementBuilder);
+    start(Document.get().createElement(tagName), tagName, elementBuilder);
     return elementBuilder;
   }
 
@@ -617,28 +667,50 @@ class DomBuilderImpl extends ElementBuilderImpl {
 
   /** Pop to the previous element in the stack. */
   private void popElement() {
-    currentElement = getCurrentElement().getParentElement();
+    openElements[--openElementCount] = null;
+    currentElement = openElementCount == 0 ? null : openElements[openElementCount - 1];
   }
 
   /**
    * Start a child element.
    *
+   * <p>The tag name is passed in rather than read from the element, so that building only writes
+   * to the DOM and never reads from it.
+   *
    * @param element the element to start
+   * @param tagName the tag name of the element
    * @param builder the builder used to builder the new element
    */
-  private void start(Element element, ElementBuilderBase<?> builder) {
-    onStart(element.getTagName(), builder);
+  private void start(Element element, String tagName, ElementBuilderBase<?> builder) {
+    /*
+     * The tag name is one of the TAG constants of the element types. Custom
+     * tag names are validated in trustedStart(String).
+     */
+    onStartTrusted(tagName, builder);
 
     // Set the root element.
-    if (rootElement == null) {
-      // This is the new root element.
-      rootElement = element;
+    if (currentElement == null) {
+      // This is a new top level element.
+      if (rootElement == null) {
+        rootElement = element;
+      }
+      if (fragment != null) {
+        fragment.appendChild(element);
+      }
     } else {
       // Appending to the current element.
       getCurrentElement().appendChild(element);
     }
 
     // Add the element to the stack.
+    if (openElementCount == openElements.length) {
+      Element[] grown = new Element[openElementCount * 2];
+      for (int i = 0; i < openElementCount; i++) {
+        grown[i] = openElements[i];
+      }
+      openElements = grown;
+    }
+    openElements[openElementCount++] = element;
     currentElement = element;
   }
 
@@ -647,34 +719,34 @@ class DomBuilderImpl extends ElementBuilderImpl {
     if (buttonBuilder == null) {
       buttonBuilder = new DomButtonBuilder(this);
     }
-    start(button, buttonBuilder);
+    start(button, ButtonElement.TAG, buttonBuilder);
     return buttonBuilder;
   }
 
   /** Start one of the many headers. */
-  private DomHeadingBuilder startHeading(int level) {
+  private DomHeadingBuilder startHeading(int level, String tagName) {
     if (headingBuilder == null) {
       headingBuilder = new DomHeadingBuilder(this);
     }
-    start(Document.get().createHElement(level), headingBuilder);
+    start(Document.get().createHElement(level), tagName, headingBuilder);
     return headingBuilder;
   }
 
   /** Start a quote or blockquote. */
-  private DomQuoteBuilder startQuote(QuoteElement quote) {
+  private DomQuoteBuilder startQuote(QuoteElement quote, String tagName) {
     if (quoteBuilder == null) {
       quoteBuilder = new DomQuoteBuilder(this);
     }
-    start(quote, quoteBuilder);
+    start(quote, tagName, quoteBuilder);
     return quoteBuilder;
   }
 
   /** Start a table section using the specified {@link TableSectionElement}. */
-  private DomTableSectionBuilder startTableSection(TableSectionElement section) {
+  private DomTableSectionBuilder startTableSection(TableSectionElement section, String tagName) {
     if (tableSectionBuilder == null) {
       tableSectionBuilder = new DomTableSectionBuilder(this);
     }
-    start(section, tableSectionBuilder);
+    start(section, tagName, tableSectionBuilder);
     return tableSectionBuilder;
   }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.client;
+
+import org.gwtproject.dom.client.Document;
+import org.gwtproject.dom.client.DocumentFragment;
+import org.gwtproject.dom.client.Node;
+
+/**
+ * Factory for building a fragment of sibling elements using DOM manipulation.
+ *
+ * <p>Every builder created by a fragment factory appends a new top level element to the same
+ * {@link DocumentFragment}. The elements are built while detached from the document, and inserting
+ * the fragment moves all of them in a single operation, so the browser performs one layout for the
+ * whole batch:
+ *
+ * <pre>
+ * DomFragmentBuilderFactory rows = new DomFragmentBuilderFactory();
+ * for (Item item : items) {
+ *   TableRowBuilder tr = rows.createTRBuilder();
+ *   tr.startTD().text(item.getName()).endTD();
+ *   tr.endTR();
+ * }
+ * tbody.appendChild(rows.finish());
+ * </pre>
+ *
+ * <p>A fragment factory builds one fragment. Each top level element must be ended before the next
+ * one is created, and {@code finish()} of the element builders is not supported.
+ *
+ * @see org.gwtproject.dom.builder.shared.HtmlFragmentBuilderFactory
+ */
+public class DomFragmentBuilderFactory extends DomBuilderFactory {
+
+  private final DomBuilderImpl impl = new DomBuilderImpl(Document.get().createDocumentFragment());
+
+  /** Create a factory for a new, empty fragment. */
+  public DomFragmentBuilderFactory() {}
+
+  /**
+   * End all open elements and return the fragment. Afterwards, no more elements can be added.
+   *
+   * @return the {@link DocumentFragment} that holds all top level elements
+   * @throws IllegalStateException if the fragment has already been finished
+   */
+  public DocumentFragment finish() {
+    return impl.finishFragment();
+  }
+
+  /**
+   * End all open elements and insert the fragment into a parent, which may be attached to the
+   * document. All elements are inserted with a single operation after the last child of the
+   * parent. Afterwards, no more elements can be added.
+   *
+   * @param parent the node to append the elements to
+   * @throws IllegalStateException if the fragment has already been finished
+   */
+  public void finishInto(Node parent) {
+    parent.appendChild(finish());
+  }
+
+  /**
+   * End all open elements and insert the fragment before a child of a parent, which may be
+   * attached to the document. All elements are inserted with a single operation. Afterwards, no
+   * more elements can be added.
+   *
+   * @param parent the node to insert the elements into
+   * @param refChild the child to insert the elements before, or null to append them
+   * @throws IllegalStateException if the fragment has already been finished
+   */
+  public void finishInto(Node parent, Node refChild) {
+    parent.insertBefore(finish(), refChild);
+  }
+
+  @Override
+  DomBuilderImpl impl() {
+    return impl;
+  }
+}
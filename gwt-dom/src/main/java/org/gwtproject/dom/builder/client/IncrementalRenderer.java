@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.client;
+
+import org.gwtproject.core.client.Duration;
+import org.gwtproject.core.client.Scheduler;
+import org.gwtproject.core.client.Scheduler.RepeatingCommand;
+import org.gwtproject.core.client.Scheduler.ScheduledCommand;
+import org.gwtproject.dom.builder.shared.ElementBuilderFactory;
+import org.gwtproject.dom.client.Document;
+import org.gwtproject.dom.client.Element;
+import org.gwtproject.dom.client.Node;
+
+/**
+ * Renders a long list of sibling elements in time slices, so that the browser can handle input and
+ * paint between the slices.
+ *
+ * <p>Building and attaching thousands of rows in one task blocks the main thread for hundreds of
+ * milliseconds. An incremental renderer instead runs as a {@link
+ * Scheduler#scheduleIncremental(RepeatingCommand) incremental command}: each slice builds items
+ * into a {@link DomFragmentBuilderFactory} until the time budget is spent, and then inserts the
+ * fragment before a placeholder in the parent with a single operation. The placeholder, which can
+ * be a "loading" row, is removed once all items are rendered or the renderer is cancelled.
+ *
+ * <pre>
+ * IncrementalRenderer renderer =
+ *     new IncrementalRenderer(
+ *         tbody,
+ *         rows.size(),
+ *         (factory, index) -> {
+ *           TableRowBuilder tr = factory.createTRBuilder();
+ *           tr.startTD().text(rows.get(index).getName()).endTD();
+ *           tr.endTR();
+ *         });
+ * renderer.setCompletionCallback(() -> updateStatus());
+ * renderer.start();
+ * </pre>
+ *
+ * <p>Each call to the {@link ItemRenderer} must build complete top level elements. At least one
+ * item is rendered per slice, so a single item that takes longer than the budget still makes
+ * progress. The scheduler runs incremental commands for at most one frame before it yields, so a
+ * budget larger than a frame only controls how many items are committed at once.
+ */
+public class IncrementalRenderer implements RepeatingCommand {
+
+  /** Builds one item. */
+  public interface ItemRenderer {
+
+    /**
+     * Build the top level elements of an item.
+     *
+     * @param factory the factory of the current slice
+     * @param index the index of the item
+     */
+    void render(ElementBuilderFactory factory, int index);
+  }
+
+  /** The default time budget of a slice in milliseconds. */
+  public static final double DEFAULT_BUDGET_MILLIS = 8;
+
+  private final Element parent;
+  private final int itemCount;
+  private final ItemRenderer itemRenderer;
+  private double budgetMillis = DEFAULT_BUDGET_MILLIS;
+  private ScheduledCommand completionCallback;
+  private Node placeholder;
+  private int renderedCount;
+  private boolean isStarted;
+  private boolean isCancelled;
+
+  /**
+   * Create a renderer that appends items to a parent.
+   *
+   * @param parent the element to append the items to
+   * @param itemCount the number of items to render
+   * @param itemRenderer the renderer of a single item
+   */
+  public IncrementalRenderer(Element parent, int itemCount, ItemRenderer itemRenderer) {
+    if (parent == null) {
+      throw new NullPointerException("parent cannot be null");
+    }
+    if (itemRenderer == null) {
+      throw new NullPointerException("itemRenderer cannot be null");
+    }
+    if (itemCount < 0) {
+      throw new IllegalArgumentException("itemCount cannot be negative: " + itemCount);
+    }
+    this.parent = parent;
+    this.itemCount = itemCount;
+    this.itemRenderer = itemRenderer;
+  }
+
+  /**
+   * Stop rendering. The items that have already been inserted are kept, the placeholder is removed
+   * and the completion callback is not called.
+   */
+  public void cancel() {
+    if (!isCancelled && !isComplete()) {
+      isCancelled = true;
+      removePlaceholder();
+    }
+  }
+
+  /**
+   * Render the next slice. Called by the scheduler.
+   *
+   * @return true if more items remain to be rendered
+   */
+  @Override
+  public boolean execute() {
+    if (isCancelled) {
+      return false;
+    }
+    if (renderedCount < itemCount) {
+      double deadline = Duration.currentTimeMillis() + budgetMillis;
+      DomFragmentBuilderFactory factory = new DomFragmentBuilderFactory();
+      do {
+        itemRenderer.render(factory, renderedCount++);
+      } while (renderedCount < itemCount && Duration.currentTimeMillis() < deadline);
+      factory.finishInto(parent, placeholder);
+    }
+    if (renderedCount < itemCount) {
+      return true;
+    }
+    removePlaceholder();
+    if (completionCallback != null) {
+      completionCallback.execute();
+    }
+    return false;
+  }
+
+  /**
+   * Get the number of items that have been rendered so far.
+   *
+   * @return the number of rendered items
+   */
+  public int getRenderedCount() {
+    return renderedCount;
+  }
+
+  /**
+   * Check if the renderer has been cancelled.
+   *
+   * @return true if {@link #cancel()} was called before all items were rendered
+   */
+  public boolean isCancelled() {
+    return isCancelled;
+  }
+
+  /**
+   * Check if all items have been rendered.
+   *
+   * @return true if all items have been rendered
+   */
+  public boolean isComplete() {
+    return isStarted && renderedCount == itemCount;
+  }
+
+  /**
+   * Set the time budget of a slice. Defaults to {@link #DEFAULT_BUDGET_MILLIS}.
+   *
+   * @param budgetMillis the time in milliseconds after which a slice is inserted
+   */
+  public void setBudgetMillis(double budgetMillis) {
+    if (!(budgetMillis > 0)) {
+      throw new IllegalArgumentException("budgetMillis must be positive: " + budgetMillis);
+    }
+    this.budgetMillis = budgetMillis;
+  }
+
+  /**
+   * Set the command that is executed once all items have been rendered.
+   *
+   * @param completionCallback the callback, or null for none
+   */
+  public void setCompletionCallback(ScheduledCommand completionCallback) {
+    this.completionCallback = completionCallback;
+  }
+
+  /**
+   * Set the node that marks the position of the items and is shown until they are all rendered.
+   * By default, an empty text node is used. The placeholder is appended to the parent when
+   * rendering starts unless it already is a child of the parent.
+   *
+   * @param placeholder the placeholder
+   */
+  public void setPlaceholder(Node placeholder) {
+    assertNotStarted();
+    this.placeholder = placeholder;
+  }
+
+  /**
+   * Insert the placeholder and schedule the rendering.
+   *
+   * @throws IllegalStateException if the renderer has already been started
+   */
+  public void start() {
+    assertNotStarted();
+    isStarted = true;
+    if (placeholder == null) {
+      placeholder = Document.get().createTextNode("");
+    }
+    if (placeholder.getParentNode() != parent) {
+      parent.appendChild(placeholder);
+    }
+    Scheduler.get().scheduleIncremental(this);
+  }
+
+  private void assertNotStarted() {
+    if (isStarted) {
+      throw new IllegalStateException("The renderer has already been started.");
+    }
+  }
+
+  private void removePlaceholder() {
+    if (placeholder != null && placeholder.getParentNode() != null) {
+      placeholder.removeFromParent();
+    }
+  }
+}
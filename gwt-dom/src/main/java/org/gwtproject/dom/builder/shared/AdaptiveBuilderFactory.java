@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import org.gwtproject.dom.builder.client.DomBuilderFactory;
+
+/**
+ * Factory for creating element builders that choose between DOM manipulation and HTML parsing for
+ * each element they build.
+ *
+ * <p>Creating a few elements with DOM manipulation is faster than generating and parsing HTML, but
+ * for larger trees a single innerHTML parse wins. The builders created by this factory record the
+ * builder operations without generating HTML until the tree reaches the threshold number of
+ * elements. When {@code finish()} is called, a tree below the threshold is created by replaying
+ * the recording through {@link DomBuilderFactory}, so small trees never pay for their HTML. Once
+ * the threshold is reached, the recording is turned into HTML and the builder continues as a plain
+ * HTML builder, so large trees are parsed from their HTML. {@link
+ * HtmlElementBuilderBase#asSafeHtml()} works as usual, because it generates the HTML of a small
+ * tree on demand.
+ *
+ * <p>The best threshold depends on the browser and the application. {@link #getDomCount()} and
+ * {@link #getHtmlCount()} report how many trees each backend has built, which can be compared with
+ * timings to tune it.
+ */
+public class AdaptiveBuilderFactory extends HtmlBuilderFactory {
+
+  /** The default number of elements in a tree at which it is parsed from HTML. */
+  public static final int DEFAULT_THRESHOLD = 32;
+
+  private final int threshold;
+  private int domCount;
+  private int htmlCount;
+
+  /** Create a factory with the {@link #DEFAULT_THRESHOLD}. */
+  public AdaptiveBuilderFactory() {
+    this(DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Create a factory with the specified threshold.
+   *
+   * @param threshold the number of elements in a tree at which it is parsed from HTML instead of
+   *     being created with DOM manipulation
+   */
+  public AdaptiveBuilderFactory(int threshold) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("threshold must be positive: " + threshold);
+    }
+    this.threshold = threshold;
+  }
+
+  /**
+   * Get the number of trees that were created with DOM manipulation since the counts were last
+   * reset.
+   *
+   * @return the number of DOM decisions
+   */
+  public int getDomCount() {
+    return domCount;
+  }
+
+  /**
+   * Get the number of trees that were parsed from HTML since the counts were last reset.
+   *
+   * @return the number of HTML decisions
+   */
+  public int getHtmlCount() {
+    return htmlCount;
+  }
+
+  /**
+   * Get the number of elements in a tree at which it is parsed from HTML.
+   *
+   * @return the threshold
+   */
+  public int getThreshold() {
+    return threshold;
+  }
+
+  /** Reset the decision counts to zero. */
+  public void resetCounts() {
+    domCount = 0;
+    htmlCount = 0;
+  }
+
+  @Override
+  HtmlBuilderImpl impl() {
+    return new AdaptiveBuilderImpl(this);
+  }
+
+  /** Count a tree that is created with DOM manipulation. */
+  void onDomFinish() {
+    domCount++;
+  }
+
+  /** Count a tree that is parsed from HTML. */
+  void onHtmlFinish() {
+    htmlCount++;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import org.gwtproject.dom.builder.client.DomBuilderFactory;
+import org.gwtproject.dom.client.Element;
+
+/**
+ * Implementation of methods in {@link ElementBuilderBase} that records the operations of small
+ * trees so that {@link #finish()} can create them with DOM manipulation, and only generates HTML
+ * once a tree is large enough to be parsed from it.
+ *
+ * <p>No HTML is generated until the tree reaches the threshold or the HTML is requested. At that
+ * point, the recording is replayed into a temporary {@link HtmlBuilderImpl} to produce the HTML of
+ * the operations so far, and the builder continues as a plain HTML builder.
+ */
+class AdaptiveBuilderImpl extends RecordingBuilderImpl {
+
+  private final AdaptiveBuilderFactory factory;
+
+  /** The number of elements started so far. */
+  private int elementCount;
+
+  /** True if the operations are written to the HTML buffer. */
+  private boolean isGeneratingHtml;
+
+  /**
+   * Construct a new {@link AdaptiveBuilderImpl}.
+   *
+   * @param factory the factory that decides the threshold and counts the decisions
+   */
+  AdaptiveBuilderImpl(AdaptiveBuilderFactory factory) {
+    this.factory = factory;
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    elementCount = 0;
+    isGeneratingHtml = false;
+  }
+
+  @Override
+  protected Element doFinishImpl() {
+    if (isGeneratingHtml) {
+      factory.onHtmlFinish();
+      return super.doFinishImpl();
+    }
+    factory.onDomFinish();
+    return getRecording().replay(DomBuilderFactory.get());
+  }
+
+  @Override
+  protected int getOutputLength() {
+    return isGeneratingHtml ? super.getOutputLength() : -1;
+  }
+
+  @Override
+  protected void onStartTrusted(String tagName, ElementBuilderBase<?> builder) {
+    elementCount++;
+    if (elementCount >= factory.getThreshold()) {
+      // Large enough to be parsed from HTML.
+      startGeneratingHtml();
+    }
+    super.onStartTrusted(tagName, builder);
+  }
+
+  @Override
+  boolean isGeneratingHtml() {
+    return isGeneratingHtml;
+  }
+
+  @Override
+  void prepareOutput() {
+    startGeneratingHtml();
+  }
+
+  /**
+   * Generate the HTML of the operations recorded so far, then stop recording and generate the HTML
+   * of the remaining operations directly.
+   */
+  private void startGeneratingHtml() {
+    if (isGeneratingHtml) {
+      return;
+    }
+    copyOutputFrom(replayRecording());
+    isGeneratingHtml = true;
+    stopRecording();
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+/**
+ * An {@link ElementBuilderListener} that counts the operations of the builders.
+ *
+ * <p>To measure a single call site, {@link #reset()} the counters before it renders and read them
+ * afterwards:
+ *
+ * <pre>
+ * ElementBuilderCounters counters = new ElementBuilderCounters();
+ * ElementBuilderImpl.setListener(counters);
+ * ...
+ * counters.reset();
+ * renderTable(rows);
+ * report("table", counters.getElementCount(), counters.getFinishMillis());
+ * </pre>
+ *
+ * <p>The counters are not thread-safe. The listener receives the operations of the builders of all
+ * threads, so only use the counters while a single thread builds elements.
+ */
+public class ElementBuilderCounters implements ElementBuilderListener {
+
+  private int attributeCount;
+  private int elementCount;
+  private int endCount;
+  private double finishMillis;
+  private int finishCount;
+  private int htmlLength;
+  private double maxFinishMillis;
+  private long outputLength;
+  private double renderMillis;
+  private int stylePropertyCount;
+  private int textLength;
+
+  /**
+   * Get the number of attributes that were added.
+   *
+   * @return the number of attributes
+   */
+  public int getAttributeCount() {
+    return attributeCount;
+  }
+
+  /**
+   * Get the number of elements that were started.
+   *
+   * @return the number of elements
+   */
+  public int getElementCount() {
+    return elementCount;
+  }
+
+  /**
+   * Get the number of elements that were ended.
+   *
+   * @return the number of ended elements
+   */
+  public int getEndCount() {
+    return endCount;
+  }
+
+  /**
+   * Get the number of builders that produced their output.
+   *
+   * @return the number of finished renders
+   */
+  public int getFinishCount() {
+    return finishCount;
+  }
+
+  /**
+   * Get the total time spent finishing builders.
+   *
+   * @return the time in milliseconds
+   */
+  public double getFinishMillis() {
+    return finishMillis;
+  }
+
+  /**
+   * Get the number of characters of inner HTML that were set.
+   *
+   * @return the number of characters
+   */
+  public int getHtmlLength() {
+    return htmlLength;
+  }
+
+  /**
+   * Get the longest time spent finishing a single builder.
+   *
+   * @return the time in milliseconds
+   */
+  public double getMaxFinishMillis() {
+    return maxFinishMillis;
+  }
+
+  /**
+   * Get the total number of characters of HTML that builders produced. Builders that create
+   * elements directly or stream their output are not included.
+   *
+   * @return the number of characters
+   */
+  public long getOutputLength() {
+    return outputLength;
+  }
+
+  /**
+   * Get the total time from starting the top level elements to finishing them.
+   *
+   * @return the time in milliseconds
+   */
+  public double getRenderMillis() {
+    return renderMillis;
+  }
+
+  /**
+   * Get the number of style properties that were added.
+   *
+   * @return the number of style properties
+   */
+  public int getStylePropertyCount() {
+    return stylePropertyCount;
+  }
+
+  /**
+   * Get the number of characters of text that were set, which HTML builders escape.
+   *
+   * @return the number of characters
+   */
+  public int getTextLength() {
+    return textLength;
+  }
+
+  @Override
+  public void onAttribute() {
+    attributeCount++;
+  }
+
+  @Override
+  public void onEnd(String tagName) {
+    endCount++;
+  }
+
+  @Override
+  public void onFinish(double renderMillis, double finishMillis, int outputLength) {
+    finishCount++;
+    this.renderMillis += renderMillis;
+    this.finishMillis += finishMillis;
+    if (finishMillis > maxFinishMillis) {
+      maxFinishMillis = finishMillis;
+    }
+    if (outputLength > 0) {
+      this.outputLength += outputLength;
+    }
+  }
+
+  @Override
+  public void onHtml(int length) {
+    htmlLength += length;
+  }
+
+  @Override
+  public void onStart(String tagName) {
+    elementCount++;
+  }
+
+  @Override
+  public void onStyleProperty() {
+    stylePropertyCount++;
+  }
+
+  @Override
+  public void onText(int length) {
+    textLength += length;
+  }
+
+  /** Set all counters to zero. */
+  public void reset() {
+    attributeCount = 0;
+    elementCount = 0;
+    endCount = 0;
+    finishCount = 0;
+    finishMillis = 0;
+    htmlLength = 0;
+    maxFinishMillis = 0;
+    outputLength = 0;
+    renderMillis = 0;
+    stylePropertyCount = 0;
+    textLength = 0;
+  }
+}
@@ -134,25 +134,32 @@ import org.gwtproject.dom.builder.client.DomBuilderFactory;
  */
 public abstract class ElementBuilderFactory {
 
-  private static ElementBuilderFactory instance;
-
   /**
-   * Get the instance of the {@link ElementBuilderFactory}.
-   *
-   * @return the {@link ElementBuilderFactory}
+   * Holds the instance, which is created when it is first requested. The class initialization
+   * publishes it safely to all threads.
    */
-  public static ElementBuilderFactory get() {
-    if (instance == null) {
+  private static class InstanceHolder {
+    private static final ElementBuilderFactory INSTANCE = createInstance();
+
+    private static ElementBuilderFactory createInstance() {
       if ("safari".equals(System.getProperty("user.agent"))) {
         // The old GWT module was configured to only allow "safari" user agent to manipulate the dom
         // directly
-        instance = DomBuilderFactory.get();
+        return DomBuilderFactory.get();
       } else {
         // All other browsers (and the JVM itself) get the string-based implementation
-        instance = HtmlBuilderFactory.get();
+        return HtmlBuilderFactory.get();
       }
     }
-    return instance;
+  }
+
+  /**
+   * Get the instance of the {@link ElementBuilderFactory}.
+   *
+   * @return the {@link ElementBuilderFactory}
+   */
+  public static ElementBuilderFactory get() {
+    return InstanceHolder.INSTANCE;
   }
 
   /** Created from static factory method. */
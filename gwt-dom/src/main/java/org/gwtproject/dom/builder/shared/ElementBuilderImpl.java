@@ -16,7 +16,6 @@
 package org.gwtproject.dom.builder.shared;
 
 import org.gwtproject.dom.client.Element;
-import org.gwtproject.regexp.shared.RegExp;
 import org.gwtproject.safehtml.shared.SafeHtml;
 
 /**
@@ -30,63 +29,74 @@ import org.gwtproject.safehtml.shared.SafeHtml;
  */
 public abstract class ElementBuilderImpl {
 
-  /** A node in the builder stack. */
-  private static class StackNode {
-    private final ElementBuilderBase<?> builder;
-    private StackNode next;
-    private final String tagName;
-
-    public StackNode(String tagName, ElementBuilderBase<?> builder) {
-      this.builder = builder;
-      this.tagName = tagName;
-    }
-  }
-
   /**
    * A stack that allows quick access to its top element.
    *
-   * <p>FastPeekStack is implemented using a simple linked list of nodes to avoid the dynamic casts
-   * associated with the emulated version of {@link java.util.ArrayList}. When constructing a large
-   * DOM structure, such as a table, the dynamic casts in ArrayList can significantly degrade
-   * performance.
+   * <p>FastPeekStack stores the tag names and builders in parallel arrays that grow as needed and
+   * are reused for the lifetime of the builder, so pushing and popping elements does not allocate.
+   * Typed arrays are used rather than the emulated version of {@link java.util.ArrayList} to avoid
+   * its dynamic casts. When constructing a large DOM structure, such as a table, the dynamic casts
+   * in ArrayList can significantly degrade performance.
    */
-  private class FastPeekStack {
+  private static class FastPeekStack {
 
     private static final String EMPTY_STACK_MESSAGE = "There are no elements on the stack.";
 
-    /** The top item in the stack. */
-    private StackNode top;
+    /** The initial capacity, which covers the nesting depth of most elements. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    private ElementBuilderBase<?>[] builders = new ElementBuilderBase<?>[INITIAL_CAPACITY];
+
+    private String[] tagNames = new String[INITIAL_CAPACITY];
 
     private int size = 0;
 
+    /** Remove all items from the stack. */
+    public void clear() {
+      while (size > 0) {
+        pop();
+      }
+    }
+
     public boolean isEmpty() {
-      return (top == null);
+      return size == 0;
     }
 
-    public StackNode peek() {
+    /**
+     * Get the builder at the top of the stack.
+     *
+     * @throws IllegalStateException if empty
+     */
+    public ElementBuilderBase<?> peekBuilder() {
       assertNotEmpty();
-      return top;
+      return builders[size - 1];
     }
 
     /**
-     * Pop the current {@link StackNode} and return it.
+     * Get the tag name at the top of the stack.
      *
-     * <p>The popped node will be recycled and should not be saved.
-     *
-     * @return the popped node
+     * @throws IllegalStateException if empty
      */
-    public StackNode pop() {
+    public String peekTagName() {
+      assertNotEmpty();
+      return tagNames[size - 1];
+    }
+
+    /** Pop the top item off the stack. */
+    public void pop() {
       assertNotEmpty();
-      StackNode toRet = top;
-      top = top.next;
       size--;
-      return toRet;
+      // Release the references so the stack does not retain finished builders.
+      builders[size] = null;
+      tagNames[size] = null;
     }
 
     public void push(ElementBuilderBase<?> builder, String tagName) {
-      StackNode node = new StackNode(tagName, builder);
-      node.next = top;
-      top = node;
+      if (size == tagNames.length) {
+        grow();
+      }
+      builders[size] = builder;
+      tagNames[size] = tagName;
       size++;
     }
 
@@ -104,13 +114,65 @@ public abstract class ElementBuilderImpl {
         throw new IllegalStateException(EMPTY_STACK_MESSAGE);
       }
     }
+
+    /** Double the capacity of the stack. */
+    private void grow() {
+      int capacity = tagNames.length * 2;
+      ElementBuilderBase<?>[] newBuilders = new ElementBuilderBase<?>[capacity];
+      String[] newTagNames = new String[capacity];
+      for (int i = 0; i < size; i++) {
+        newBuilders[i] = builders[i];
+        newTagNames[i] = tagNames[i];
+      }
+      builders = newBuilders;
+      tagNames = newTagNames;
+    }
   }
 
-  /** A regex for matching valid HTML tags. */
-  private static RegExp HTML_TAG_REGEX;
+  /**
+   * True if builders report to the {@link ElementBuilderListener}. Instrumentation is enabled by
+   * setting the {@code gwt.dom.builder.instrumentation} system property, or the define or
+   * configuration property of the same name, to {@code true}. Otherwise the constant is false and
+   * the compiler removes all instrumentation code.
+   */
+  public static final boolean INSTRUMENTATION_ENABLED =
+      "true".equals(System.getProperty("gwt.dom.builder.instrumentation", "false"));
+
+  /** The listener that all builders report to, or null. Volatile to publish it to all threads. */
+  private static volatile ElementBuilderListener listener;
+
+  /**
+   * Set the listener that all builders report their operations to.
+   *
+   * <p>The listener is shared by all builders, so set a new listener, or reset the counters of an
+   * {@link ElementBuilderCounters}, before a render to attribute its cost to a call site.
+   *
+   * @param listener the listener, or null to stop reporting
+   * @throws IllegalStateException if a listener is set but {@link #INSTRUMENTATION_ENABLED} is
+   *     false
+   */
+  public static void setListener(ElementBuilderListener listener) {
+    if (listener != null && !INSTRUMENTATION_ENABLED) {
+      throw new IllegalStateException(
+          "Set gwt.dom.builder.instrumentation to true to enable builder instrumentation.");
+    }
+    ElementBuilderImpl.listener = listener;
+  }
+
+  /**
+   * Check if a listener is set, to decide whether to time an operation. Constant false if
+   * instrumentation is disabled. The listener itself must be read once into a local variable before
+   * it is notified, because another thread may clear it in between.
+   */
+  protected static boolean isInstrumented() {
+    return INSTRUMENTATION_ENABLED && listener != null;
+  }
 
   private boolean asElementCalled;
 
+  /** True if the builder builds a fragment with any number of top level elements. */
+  private final boolean isFragment;
+
   /** True if the top most element has not yet been added. */
   private boolean isEmpty = true;
 
@@ -129,11 +191,23 @@ public abstract class ElementBuilderImpl {
   /** The stack of element builders. */
   private final FastPeekStack stack = new FastPeekStack();
 
-  public ElementBuilderImpl() {
-    if (HTML_TAG_REGEX == null) {
-      // Starts with a-z, plus 0 or more alphanumeric values (case insensitive).
-      HTML_TAG_REGEX = RegExp.compile("^[a-z][a-z0-9]*$", "i");
-    }
+  /** The time the current top level element was started, if instrumented. */
+  private long startNanos;
+
+  /** True while {@link #finish()} creates the element, so only the outermost call is reported. */
+  private boolean isFinishing;
+
+  protected ElementBuilderImpl() {
+    this(false);
+  }
+
+  /**
+   * Construct a new {@link ElementBuilderImpl}.
+   *
+   * @param isFragment true to build a fragment that can contain any number of top level elements
+   */
+  protected ElementBuilderImpl(boolean isFragment) {
+    this.isFragment = isFragment;
   }
 
   public void end() {
@@ -170,15 +244,27 @@ public abstract class ElementBuilderImpl {
    * @return the {@link Element} that was built
    */
   public Element finish() {
+    if (isFragment) {
+      throw new IllegalStateException(
+          "finish() cannot be called on a fragment. Finish the fragment instead.");
+    }
     if (asElementCalled) {
       throw new IllegalStateException("asElement() can only be called once.");
     }
     asElementCalled = true;
-
-    // End all open tags.
-    endAllTags();
-
-    return doFinishImpl();
+    long finishNanos = isInstrumented() ? System.nanoTime() : 0;
+    isFinishing = true;
+    Element element;
+    try {
+      // End all open tags.
+      endAllTags();
+
+      element = doFinishImpl();
+    } finally {
+      isFinishing = false;
+    }
+    onFinished(finishNanos);
+    return element;
   }
 
   public int getDepth() {
@@ -186,41 +272,30 @@ public abstract class ElementBuilderImpl {
   }
 
   public void html(SafeHtml html) {
-    assertStartTagOpen(
-        "html cannot be set on an element that already " + "contains other content or elements.");
-    lockCurrentElement();
+    onHtml(html.asString().length());
     doHtmlImpl(html);
   }
 
   public void onStart(String tagName, ElementBuilderBase<?> builder) {
-    if (isEmpty) {
-      isEmpty = false;
-    } else if (stack.isEmpty()) {
-      // Check that we aren't creating another top level element.
-      throw new IllegalStateException("You can only build one top level element.");
-    } else {
-      // Check that the element supports children.
-      assertEndTagNotForbidden("child elements");
-      if (!getCurrentBuilder().isChildElementSupported()) {
-        throw new UnsupportedOperationException(
-            getCurrentTagName() + " does not support child elements.");
-      }
-    }
-
-    // Check that asElement hasn't already been called.
-    if (isHtmlOrTextAdded) {
-      throw new IllegalStateException("Cannot append an element after setting text of html.");
-    }
-
-    // Validate the tagName.
-    assertValidTagName(tagName);
+    onStart(tagName, builder, true);
+  }
 
-    maybeCloseStartTag();
-    stack.push(builder, tagName);
-    isStartTagOpen = true;
-    isStyleOpen = false;
-    isStyleClosed = false;
+  /**
+   * Reset the builder to its initial state so that it can build a new top level element.
+   *
+   * <p>Open elements are discarded without being ended. Subclasses that hold on to output must
+   * clear it, but may keep their element builders and buffers to reuse them.
+   */
+  public void reset() {
+    stack.clear();
+    asElementCalled = false;
+    isEmpty = true;
     isHtmlOrTextAdded = false;
+    isStartTagOpen = false;
+    isStyleClosed = false;
+    isStyleOpen = false;
+    isFinishing = false;
+    startNanos = 0;
   }
 
   /**
@@ -234,6 +309,10 @@ public abstract class ElementBuilderImpl {
     assertStartTagOpen(
         "text cannot be set on an element that already " + "contains other content or elements.");
     lockCurrentElement();
+    ElementBuilderListener l = listener;
+    if (INSTRUMENTATION_ENABLED && l != null) {
+      l.onText(text.length());
+    }
     doTextImpl(text);
   }
 
@@ -246,6 +325,10 @@ public abstract class ElementBuilderImpl {
     assertStartTagOpen(
         "Attributes cannot be added after appending HTML or adding a child " + "element.");
     maybeCloseStyleAttribute();
+    ElementBuilderListener l = listener;
+    if (INSTRUMENTATION_ENABLED && l != null) {
+      l.onAttribute();
+    }
   }
 
   /**
@@ -267,6 +350,10 @@ public abstract class ElementBuilderImpl {
       isStyleOpen = true;
       doOpenStyleImpl();
     }
+    ElementBuilderListener l = listener;
+    if (INSTRUMENTATION_ENABLED && l != null) {
+      l.onStyleProperty();
+    }
   }
 
   /**
@@ -275,7 +362,7 @@ public abstract class ElementBuilderImpl {
    * @throws IllegalArgumentException if not valid
    */
   protected void assertValidTagName(String tagName) {
-    if (!HTML_TAG_REGEX.test(tagName)) {
+    if (!isValidTagName(tagName)) {
       throw new IllegalArgumentException("The specified tag name is invalid: " + tagName);
     }
   }
@@ -342,6 +429,137 @@ public abstract class ElementBuilderImpl {
     isHtmlOrTextAdded = true;
   }
 
+  /**
+   * End all open elements of a fragment. Afterwards, no more elements can be added.
+   *
+   * @throws IllegalStateException if the builder does not build a fragment, or the fragment has
+   *     already been finished
+   */
+  protected void onFinishFragment() {
+    if (!isFragment) {
+      throw new IllegalStateException("The builder does not build a fragment.");
+    }
+    if (asElementCalled) {
+      throw new IllegalStateException("The fragment has already been finished.");
+    }
+    asElementCalled = true;
+    isEmpty = false;
+    endAllTags();
+  }
+
+  /**
+   * Prepare the current element for a complete child element that is appended in one piece, such
+   * as the rendered markup of an {@link ElementTemplate}.
+   *
+   * <p>The same checks are made as when a child element is started, and the start tag of the
+   * current element is closed. Afterwards the builder is in the same state as after a child element
+   * has been ended.
+   *
+   * @throws IllegalStateException if there is no open element to append the child to
+   */
+  protected void onAppendChildElement() {
+    if (stack.isEmpty()) {
+      throw new IllegalStateException("A child element can only be appended to an open element.");
+    }
+    assertChildElementSupported();
+    if (isHtmlOrTextAdded) {
+      throw new IllegalStateException("Cannot append an element after setting text of html.");
+    }
+
+    maybeCloseStartTag();
+    isStyleClosed = true; // Too late to add styles.
+  }
+
+  /**
+   * Get the tag name of the current element.
+   *
+   * @return the tag name, or null if no element is open
+   */
+  protected String getOpenTagName() {
+    return stack.isEmpty() ? null : stack.peekTagName();
+  }
+
+  /**
+   * Check if the style attribute of the current element is open, so that more style properties can
+   * be added to it.
+   *
+   * @return true if the style attribute is open
+   */
+  protected boolean isStyleOpen() {
+    return isStyleOpen;
+  }
+
+  /**
+   * Prepare the current element for inner HTML and lock it. Called before the HTML is added to the
+   * output.
+   *
+   * @param length the number of characters of the HTML, for instrumentation
+   * @throws IllegalStateException if the element already contains other content or elements
+   */
+  protected void onHtml(int length) {
+    assertStartTagOpen(
+        "html cannot be set on an element that already " + "contains other content or elements.");
+    lockCurrentElement();
+    ElementBuilderListener l = listener;
+    if (INSTRUMENTATION_ENABLED && l != null) {
+      l.onHtml(length);
+    }
+  }
+
+  /**
+   * Get the number of characters of output the builder produced, for instrumentation.
+   *
+   * @return the length of the output, or -1 if the builder does not produce text
+   */
+  protected int getOutputLength() {
+    return -1;
+  }
+
+  /**
+   * Report a finished render to the {@link ElementBuilderListener}, unless it is reported by an
+   * enclosing call to {@link #finish()}.
+   *
+   * @param finishNanos the {@link System#nanoTime()} when finishing started, or 0
+   */
+  protected void onFinished(long finishNanos) {
+    ElementBuilderListener l = listener;
+    if (INSTRUMENTATION_ENABLED && l != null && !isFinishing) {
+      long now = System.nanoTime();
+      double renderMillis = startNanos == 0 ? 0 : (now - startNanos) / 1e6;
+      double finishMillis = finishNanos == 0 ? 0 : (now - finishNanos) / 1e6;
+      l.onFinish(renderMillis, finishMillis, getOutputLength());
+      startNanos = 0;
+    }
+  }
+
+  /**
+   * Start an element without validating its tag name.
+   *
+   * <p>Only use this method with tag names that are known to be valid, such as the {@code TAG}
+   * constants of the element types used by the typed {@code startXxx()} methods, or names that
+   * have already been checked with {@link #assertValidTagName(String)}. Skipping the check saves a
+   * scan of the tag name for every element.
+   *
+   * @param tagName the tag name of the element
+   * @param builder the builder of the element
+   */
+  protected void onStartTrusted(String tagName, ElementBuilderBase<?> builder) {
+    onStart(tagName, builder, false);
+  }
+
+  /**
+   * Assert that the current element supports child elements.
+   *
+   * @throws {@link UnsupportedOperationException} if not supported
+   */
+  private void assertChildElementSupported() {
+    assertEndTagNotForbidden("child elements");
+    if (!getCurrentBuilder().isChildElementSupported()) {
+      throw new UnsupportedOperationException(
+          getCurrentTagName() + " does not support child elements.");
+    }
+  }
+
   /**
    * Assert that the current builder does not forbid end tags.
    *
@@ -386,6 +604,11 @@ public abstract class ElementBuilderImpl {
       doEndTagImpl(tagName);
     }
 
+    ElementBuilderListener l = listener;
+    if (INSTRUMENTATION_ENABLED && l != null) {
+      l.onEnd(tagName);
+    }
+
     // Popup the item off the top of the stack.
     isStartTagOpen = false; // Closed because this element was added.
     isStyleClosed = true; // Too late to add styles.
@@ -405,7 +628,7 @@ public abstract class ElementBuilderImpl {
    * @throws IllegalStateException if there are no elements on the stack
    */
   private ElementBuilderBase<?> getCurrentBuilder() {
-    return stack.peek().builder;
+    return stack.peekBuilder();
   }
 
   /**
@@ -415,7 +638,55 @@ public abstract class ElementBuilderImpl {
    * @throws IllegalStateException if there are no elements on the stack
    */
   private String getCurrentTagName() {
-    return stack.peek().tagName;
+    return stack.peekTagName();
+  }
+
+  /**
+   * Start an element.
+   *
+   * @param tagName the tag name of the element
+   * @param builder the builder of the element
+   * @param validate true to validate the tag name
+   */
+  private void onStart(String tagName, ElementBuilderBase<?> builder, boolean validate) {
+    if (isEmpty) {
+      isEmpty = false;
+    } else if (stack.isEmpty()) {
+      // Check that we aren't creating another top level element.
+      if (!isFragment) {
+        throw new IllegalStateException("You can only build one top level element.");
+      }
+      if (asElementCalled) {
+        throw new IllegalStateException("The fragment has already been finished.");
+      }
+    } else {
+      assertChildElementSupported();
+    }
+
+    // Check that asElement hasn't already been called.
+    if (isHtmlOrTextAdded) {
+      throw new IllegalStateException("Cannot append an element after setting text of html.");
+    }
+
+    // Validate the tagName.
+    if (validate) {
+      assertValidTagName(tagName);
+    }
+
+    maybeCloseStartTag();
+    stack.push(builder, tagName);
+    isStartTagOpen = true;
+    isStyleOpen = false;
+    isStyleClosed = false;
+    isHtmlOrTextAdded = false;
+
+    ElementBuilderListener l = listener;
+    if (INSTRUMENTATION_ENABLED && l != null) {
+      if (stack.size() == 1 && startNanos == 0) {
+        startNanos = System.nanoTime();
+      }
+      l.onStart(tagName);
+    }
   }
 
   /** Close the start tag if it is still open. */
@@ -442,4 +713,30 @@ public abstract class ElementBuilderImpl {
       doCloseStyleAttributeImpl();
     }
   }
+
+  /** Check if the character is an ASCII letter, in either case. */
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  /**
+   * Check if the tag name starts with a letter, followed by zero or more letters or digits (case
+   * insensitive).
+   *
+   * <p>This is a plain character scan rather than a regular expression, which would cost a regex
+   * match for every element on the JVM and a RegExp call in JavaScript.
+   */
+  private static boolean isValidTagName(String tagName) {
+    int length = tagName.length();
+    if (length == 0 || !isAsciiLetter(tagName.charAt(0))) {
+      return false;
+    }
+    for (int i = 1; i < length; i++) {
+      char c = tagName.charAt(i);
+      if (!isAsciiLetter(c) && (c < '0' || c > '9')) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+/**
+ * Receives the operations of all element builders, for telemetry and profiling.
+ *
+ * <p>Listeners are only notified if {@link ElementBuilderImpl#INSTRUMENTATION_ENABLED} is true,
+ * and are registered with {@link ElementBuilderImpl#setListener(ElementBuilderListener)}. Both the
+ * HTML and the DOM builders report. The methods are called for every element, so they should do
+ * no more than update counters.
+ *
+ * @see ElementBuilderCounters
+ */
+public interface ElementBuilderListener {
+
+  /** Called when an attribute is added, including the attributes set by typed builder methods. */
+  void onAttribute();
+
+  /**
+   * Called when an element is ended.
+   *
+   * @param tagName the tag name of the element
+   */
+  void onEnd(String tagName);
+
+  /**
+   * Called when a builder has produced its output, by {@code finish()}, {@code asSafeHtml()},
+   * {@code flush()} or by finishing a fragment.
+   *
+   * @param renderMillis the time since the top level element was started
+   * @param finishMillis the time spent finishing, including the parsing of HTML into elements
+   * @param outputLength the number of characters of HTML, or -1 if the builder created elements
+   *     directly or streamed its output
+   */
+  void onFinish(double renderMillis, double finishMillis, int outputLength);
+
+  /**
+   * Called when inner HTML is set.
+   *
+   * @param length the number of characters of HTML
+   */
+  void onHtml(int length);
+
+  /**
+   * Called when an element is started.
+   *
+   * @param tagName the tag name of the element
+   */
+  void onStart(String tagName);
+
+  /** Called when a style property is added. */
+  void onStyleProperty();
+
+  /**
+   * Called when text is set. HTML builders escape every character of the text.
+   *
+   * @param length the number of characters of text
+   */
+  void onText(int length);
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.gwtproject.dom.builder.client.DomBuilderFactory;
+import org.gwtproject.dom.client.Element;
+import org.gwtproject.safehtml.shared.SafeHtml;
+
+/**
+ * A compact log of the builder operations that build one element, recorded by an {@link
+ * OpLogBuilderFactory}, which can be sent to another process and played back as HTML or DOM.
+ *
+ * <p>Operations are kept as an array of ints: the operation followed by the ids of its name and
+ * value. Every string is stored once and referred to by its id, and common tag, attribute and style
+ * names have fixed ids that are never stored at all. The binary form of {@link #toBytes()} writes
+ * the ids and characters as variable-length integers, so a log of a large table with repeated
+ * class names is much smaller than its HTML.
+ *
+ * <pre>
+ * // On the server.
+ * byte[] payload = opLogFactory.finishOpLog().toBytes();
+ *
+ * // On the client.
+ * Element table = ElementOpLog.fromBytes(payload).toElement();
+ * </pre>
+ *
+ * <p>The binary form starts with a version, and logs written by this version can be read by all
+ * later versions. Playing a log back makes the same checks as the builder calls that recorded it,
+ * so a corrupted log can only fail with an exception, but a log from an untrusted source can still
+ * contain any markup: HTML operations are played back as trusted HTML.
+ */
+public final class ElementOpLog {
+
+  /** The version of the binary form written by {@link #toBytes()}. */
+  public static final int VERSION = 1;
+
+  /** The first bytes of the binary form. */
+  private static final int MAGIC_0 = 'G';
+
+  private static final int MAGIC_1 = 'B';
+
+  /**
+   * Names with fixed ids, in the order of their ids. Part of the binary form: names may only be
+   * appended, together with a new {@link #VERSION}.
+   */
+  private static final String[] KNOWN_STRINGS = {
+    // Tags.
+    "a", "b", "br", "button", "caption", "col", "colgroup", "dd", "div", "dl", "dt", "em",
+    "fieldset", "form", "h1", "h2", "h3", "h4", "h5", "h6", "hr", "i", "img", "input", "label",
+    "legend", "li", "ol", "optgroup", "option", "p", "pre", "select", "span", "strong", "table",
+    "tbody", "td", "textarea", "tfoot", "th", "thead", "tr", "ul",
+    // Attributes.
+    "alt", "checked", "class", "colspan", "data-key", "disabled", "for", "height", "href", "id",
+    "name", "rowspan", "selected", "src", "style", "tabindex", "title", "type", "value", "width",
+    // Style properties.
+    "background-color", "border", "color", "display", "font-size", "font-weight", "left",
+    "margin", "padding", "position", "text-align", "top"
+  };
+
+  private static final Map<String, Integer> KNOWN_IDS = new HashMap<>();
+
+  static {
+    for (int i = 0; i < KNOWN_STRINGS.length; i++) {
+      KNOWN_IDS.put(KNOWN_STRINGS[i], i);
+    }
+  }
+
+  /**
+   * Create a log from a recording.
+   *
+   * @param recording the recording of a finished builder
+   * @return the log
+   */
+  static ElementOpLog of(ElementRecording recording) {
+    int size = recording.size();
+    int[] ops = new int[size * 3];
+    int length = 0;
+    Map<String, Integer> ids = new HashMap<>();
+    String[] strings = new String[16];
+    int stringCount = 0;
+    for (int i = 0; i < size; i++) {
+      int op = recording.getOp(i);
+      ops[length++] = op;
+      for (int operand = 0; operand < operandCount(op); operand++) {
+        String s = operandString(op, operand, recording.getName(i), recording.getValue(i));
+        Integer id = KNOWN_IDS.get(s);
+        if (id == null) {
+          id = ids.get(s);
+        }
+        if (id == null) {
+          id = KNOWN_STRINGS.length + stringCount;
+          ids.put(s, id);
+          if (stringCount == strings.length) {
+            strings = copyOf(strings, stringCount * 2);
+          }
+          strings[stringCount++] = s;
+        }
+        ops[length++] = id;
+      }
+    }
+    return new ElementOpLog(ops, length, copyOf(strings, stringCount));
+  }
+
+  /**
+   * Read a log from its binary form.
+   *
+   * @param bytes the bytes written by {@link #toBytes()}
+   * @return the log
+   * @throws IllegalArgumentException if the bytes are not a valid log
+   */
+  public static ElementOpLog fromBytes(byte[] bytes) {
+    if (bytes == null) {
+      throw new NullPointerException("bytes cannot be null");
+    }
+    Reader in = new Reader(bytes);
+    if (in.readByte() != MAGIC_0 || in.readByte() != MAGIC_1) {
+      throw new IllegalArgumentException("The bytes are not an element op log.");
+    }
+    int version = in.readByte();
+    if (version < 1 || version > VERSION) {
+      throw new IllegalArgumentException("Unsupported element op log version: " + version);
+    }
+
+    String[] strings = new String[in.readCount()];
+    for (int i = 0; i < strings.length; i++) {
+      char[] chars = new char[in.readCount()];
+      for (int c = 0; c < chars.length; c++) {
+        chars[c] = (char) in.readVarInt();
+      }
+      strings[i] = String.valueOf(chars);
+    }
+
+    int opCount = in.readCount();
+    int idLimit = KNOWN_STRINGS.length + strings.length;
+    int[] ops = new int[opCount * 3];
+    int length = 0;
+    for (int i = 0; i < opCount; i++) {
+      int op = in.readByte();
+      if (op < ElementRecording.ATTRIBUTE || op > ElementRecording.TEXT) {
+        throw new IllegalArgumentException("Unknown builder operation: " + op);
+      }
+      ops[length++] = op;
+      for (int operand = 0; operand < operandCount(op); operand++) {
+        int id = in.readVarInt();
+        if (id >= idLimit) {
+          throw new IllegalArgumentException("Unknown string id: " + id);
+        }
+        ops[length++] = id;
+      }
+    }
+    if (!in.isAtEnd()) {
+      throw new IllegalArgumentException("Unexpected bytes after the last operation.");
+    }
+    return new ElementOpLog(ops, length, strings);
+  }
+
+  private static String[] copyOf(String[] strings, int length) {
+    String[] copy = new String[length];
+    for (int i = 0; i < length && i < strings.length; i++) {
+      copy[i] = strings[i];
+    }
+    return copy;
+  }
+
+  /** Get the number of strings that an operation refers to. */
+  private static int operandCount(int op) {
+    switch (op) {
+      case ElementRecording.ATTRIBUTE:
+      case ElementRecording.STYLE:
+        return 2;
+      case ElementRecording.HTML:
+      case ElementRecording.START:
+      case ElementRecording.TEXT:
+        return 1;
+      default:
+        return 0;
+    }
+  }
+
+  /** Get the string of an operand: the name of named operations, then the value. */
+  private static String operandString(int op, int operand, String name, String value) {
+    return op == ElementRecording.HTML || op == ElementRecording.TEXT || operand == 1
+        ? value
+        : name;
+  }
+
+  /** The operations, each followed by the ids of its operands. */
+  private final int[] ops;
+
+  /** The number of used ints in {@link #ops}. */
+  private final int length;
+
+  /** The strings that are not known names, in the order of their ids. */
+  private final String[] strings;
+
+  private ElementOpLog(int[] ops, int length, String[] strings) {
+    this.ops = ops;
+    this.length = length;
+    this.strings = strings;
+  }
+
+  /**
+   * Get the number of operations in the log.
+   *
+   * @return the number of operations
+   */
+  public int getOpCount() {
+    int count = 0;
+    for (int i = 0; i < length; i += 1 + operandCount(ops[i])) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Get the number of distinct strings stored in the log, not counting the names with fixed ids.
+   *
+   * @return the number of strings
+   */
+  public int getStringCount() {
+    return strings.length;
+  }
+
+  /**
+   * Write the log in its binary form.
+   *
+   * @return the bytes
+   */
+  public byte[] toBytes() {
+    Writer out = new Writer(length * 2 + 16);
+    out.writeByte(MAGIC_0);
+    out.writeByte(MAGIC_1);
+    out.writeByte(VERSION);
+    out.writeVarInt(strings.length);
+    for (String s : strings) {
+      out.writeVarInt(s.length());
+      for (int c = 0; c < s.length(); c++) {
+        out.writeVarInt(s.charAt(c));
+      }
+    }
+    out.writeVarInt(getOpCount());
+    for (int i = 0; i < length; ) {
+      int op = ops[i++];
+      out.writeByte(op);
+      for (int operand = operandCount(op); operand > 0; operand--) {
+        out.writeVarInt(ops[i++]);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Play the log back as DOM elements with the {@link DomBuilderFactory}.
+   *
+   * @return the root element
+   * @throws IllegalStateException if the log does not describe a valid element
+   */
+  public Element toElement() {
+    return replay(DomBuilderFactory.get().trustedCreate(rootTagName()), null).finish();
+  }
+
+  /**
+   * Play the log back as HTML.
+   *
+   * @return the HTML of the root element
+   * @throws IllegalStateException if the log does not describe a valid element
+   */
+  public SafeHtml toSafeHtml() {
+    HtmlBuilderImpl impl = new HtmlBuilderImpl();
+    String tagName = rootTagName();
+    replay(
+        ElementRecording.isEndTagForbidden(tagName)
+            ? impl.trustedStartEndTagForbidden(tagName)
+            : impl.trustedStart(tagName),
+        impl);
+    return impl.asSafeHtml();
+  }
+
+  /**
+   * Play the operations after the start of the root element back.
+   *
+   * @param root the builder of the root element
+   * @param html the implementation of an HTML builder, to start elements whose end tag is
+   *     forbidden, or null
+   * @return the builder of the root element
+   */
+  private ElementBuilderBase<?> replay(ElementBuilderBase<?> root, HtmlBuilderImpl html) {
+    ElementBuilderBase<?> builder = root;
+    int i = 2;
+    while (i < length) {
+      int op = ops[i++];
+      String name = null;
+      String value = null;
+      if (op == ElementRecording.HTML || op == ElementRecording.TEXT) {
+        value = string(ops[i++]);
+      } else if (op == ElementRecording.START) {
+        name = string(ops[i++]);
+        if (html != null && ElementRecording.isEndTagForbidden(name)) {
+          builder = html.trustedStartEndTagForbidden(name);
+          continue;
+        }
+      } else if (op != ElementRecording.END) {
+        name = string(ops[i++]);
+        value = string(ops[i++]);
+      }
+      builder = ElementRecording.replay(builder, op, name, value);
+    }
+    return root;
+  }
+
+  /** Get the tag name of the root element. */
+  private String rootTagName() {
+    if (length == 0 || ops[0] != ElementRecording.START) {
+      throw new IllegalStateException("The log does not start with an element.");
+    }
+    return string(ops[1]);
+  }
+
+  private String string(int id) {
+    return id < KNOWN_STRINGS.length ? KNOWN_STRINGS[id] : strings[id - KNOWN_STRINGS.length];
+  }
+
+  /** Reads the binary form. */
+  private static final class Reader {
+
+    private final byte[] bytes;
+    private int position;
+
+    Reader(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    boolean isAtEnd() {
+      return position == bytes.length;
+    }
+
+    int readByte() {
+      if (position == bytes.length) {
+        throw new IllegalArgumentException("The element op log is truncated.");
+      }
+      return bytes[position++] & 0xff;
+    }
+
+    /** Read a count, which cannot exceed the number of remaining bytes. */
+    int readCount() {
+      int count = readVarInt();
+      if (count > bytes.length - position) {
+        throw new IllegalArgumentException("Invalid count in the element op log: " + count);
+      }
+      return count;
+    }
+
+    int readVarInt() {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        int b = readByte();
+        value |= (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) {
+          if (value < 0) {
+            break;
+          }
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Invalid number in the element op log.");
+    }
+  }
+
+  /** Writes the binary form. */
+  private static final class Writer {
+
+    private byte[] bytes;
+    private int position;
+
+    Writer(int capacity) {
+      bytes = new byte[capacity];
+    }
+
+    byte[] toByteArray() {
+      byte[] result = new byte[position];
+      System.arraycopy(bytes, 0, result, 0, position);
+      return result;
+    }
+
+    void writeByte(int b) {
+      if (position == bytes.length) {
+        byte[] newBytes = new byte[bytes.length * 2];
+        System.arraycopy(bytes, 0, newBytes, 0, position);
+        bytes = newBytes;
+      }
+      bytes[position++] = (byte) b;
+    }
+
+    void writeVarInt(int value) {
+      while ((value & ~0x7f) != 0) {
+        writeByte((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      writeByte(value);
+    }
+  }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.gwtproject.dom.client.Document;
+import org.gwtproject.dom.client.Element;
+import org.gwtproject.dom.client.Node;
+
+/**
+ * Updates an existing element so that it matches an {@link ElementRecording}, touching only the
+ * attributes, styles, text and children that differ.
+ *
+ * <p>Child elements are matched by the value of the key attribute if they have one, and otherwise
+ * by their position among the unkeyed children with the same tag name. Matched elements are updated
+ * in place, and only the fewest of them needed to restore the order are moved, so their focus,
+ * scroll position and listeners are kept. Unmatched existing children are removed and unmatched new
+ * children are created.
+ *
+ * <p>Only attributes are compared, not properties, so state that the user changed without
+ * changing an attribute, such as the value of a text input, is kept. The style is compared as a
+ * whole attribute in the "name:value;" form that {@link StylesBuilder} generates.
+ */
+final class ElementReconciler {
+
+  private final String keyAttribute;
+  private ElementRecording recording;
+
+  /** The index of the matching end operation for each start operation. */
+  private int[] ends = new int[16];
+
+  /** The start operations of the open elements while the ends are indexed. */
+  private int[] openStarts = new int[16];
+
+  private int mutationCount;
+
+  /**
+   * Construct a new {@link ElementReconciler}.
+   *
+   * @param keyAttribute the name of the attribute that identifies child elements
+   */
+  ElementReconciler(String keyAttribute) {
+    this.keyAttribute = keyAttribute;
+  }
+
+  /**
+   * Get the number of DOM mutations that the last call to {@link #reconcile} performed.
+   *
+   * @return the number of mutations
+   */
+  int getMutationCount() {
+    return mutationCount;
+  }
+
+  /**
+   * Update an element to match a recording. If the tag name of the recorded root differs from that
+   * of the element, a new element is created and replaces the existing one in its parent.
+   *
+   * @param target the existing element
+   * @param recording the recording of a complete element
+   * @return the updated element, which is the target unless it had to be replaced
+   */
+  Element reconcile(Element target, ElementRecording recording) {
+    if (recording.size() == 0 || recording.getOp(0) != ElementRecording.START) {
+      throw new IllegalStateException("The recording does not start with an element.");
+    }
+    this.recording = recording;
+    mutationCount = 0;
+    indexEnds();
+    try {
+      Element root = target;
+      if (!isSameTag(target, 0)) {
+        root = create(0);
+        Node parent = target.getParentNode();
+        if (parent != null) {
+          parent.replaceChild(root, target);
+          mutationCount++;
+        }
+      }
+      update(root, 0);
+      return root;
+    } finally {
+      this.recording = null;
+    }
+  }
+
+  /** Create an empty element for the start operation at the specified index. */
+  private Element create(int start) {
+    mutationCount++;
+    return Document.get().createElement(recording.getName(start));
+  }
+
+  /** Find the index of the first operation after the attributes and styles of an element. */
+  private int findContent(int start) {
+    int i = start + 1;
+    while (recording.getOp(i) == ElementRecording.ATTRIBUTE
+        || recording.getOp(i) == ElementRecording.STYLE) {
+      i++;
+    }
+    return i;
+  }
+
+  /** Get the recorded key of the element started at the specified index, or null. */
+  private String getKey(int start) {
+    for (int i = start + 1; i < ends[start]; i++) {
+      int op = recording.getOp(i);
+      if (op == ElementRecording.ATTRIBUTE) {
+        if (keyAttribute.equalsIgnoreCase(recording.getName(i))) {
+          return recording.getValue(i);
+        }
+      } else if (op != ElementRecording.STYLE) {
+        break;
+      }
+    }
+    return null;
+  }
+
+  /** Record the index of the matching end operation of every start operation. */
+  private void indexEnds() {
+    int size = recording.size();
+    if (ends.length < size) {
+      ends = new int[Math.max(size, ends.length * 2)];
+    }
+    int depth = 0;
+    for (int i = 0; i < size; i++) {
+      int op = recording.getOp(i);
+      if (op == ElementRecording.START) {
+        if (depth == openStarts.length) {
+          int[] grown = new int[depth * 2];
+          System.arraycopy(openStarts, 0, grown, 0, depth);
+          openStarts = grown;
+        }
+        openStarts[depth++] = i;
+      } else if (op == ElementRecording.END) {
+        ends[openStarts[--depth]] = i;
+      }
+    }
+  }
+
+  /** Check if the tag name of an element matches the start operation at the specified index. */
+  private boolean isSameTag(Element element, int start) {
+    return element.getTagName().equalsIgnoreCase(recording.getName(start));
+  }
+
+  /** Check if an attribute name is recorded between the specified operations. */
+  private boolean isRecordedAttribute(String name, int start, int content, boolean hasStyle) {
+    if (hasStyle && "style".equalsIgnoreCase(name)) {
+      return true;
+    }
+    for (int i = start + 1; i < content; i++) {
+      if (recording.getOp(i) == ElementRecording.ATTRIBUTE
+          && name.equalsIgnoreCase(recording.getName(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Update the children of an element to match the child start operations from an index. */
+  private void updateChildren(Element element, int first, int end) {
+    // Index the existing children. Text and other nodes are removed.
+    int existingCount = 0;
+    Element[] existing = new Element[element.getChildCount()];
+    Map<String, Integer> keyed = null;
+    Node child = element.getFirstChild();
+    while (child != null) {
+      Node next = child.getNextSibling();
+      if (Element.is(child)) {
+        Element childElement = Element.as(child);
+        if (childElement.hasAttribute(keyAttribute)) {
+          if (keyed == null) {
+            keyed = new HashMap<>();
+          }
+          keyed.put(childElement.getAttribute(keyAttribute), existingCount);
+        }
+        existing[existingCount++] = childElement;
+      } else {
+        element.removeChild(child);
+        mutationCount++;
+      }
+      child = next;
+    }
+
+    // Match the new children to the existing ones and update them.
+    boolean[] used = new boolean[existingCount];
+    int childCount = 0;
+    for (int i = first; i < end; i = ends[i] + 1) {
+      childCount++;
+    }
+    Element[] children = new Element[childCount];
+    // The index of the existing child that each new child was matched to, or -1.
+    int[] matches = new int[childCount];
+    // The index to continue from when matching unkeyed children, for each tag name.
+    Map<String, Integer> unkeyed = null;
+    int c = 0;
+    for (int i = first; i < end; i = ends[i] + 1) {
+      int match = -1;
+      String key = getKey(i);
+      if (key != null) {
+        Integer index = keyed == null ? null : keyed.get(key);
+        if (index != null && !used[index] && isSameTag(existing[index], i)) {
+          match = index;
+        }
+      } else {
+        if (unkeyed == null) {
+          unkeyed = new HashMap<>();
+        }
+        String tagName = recording.getName(i);
+        Integer from = unkeyed.get(tagName);
+        for (int j = from == null ? 0 : from; j < existingCount; j++) {
+          if (!used[j] && !existing[j].hasAttribute(keyAttribute) && isSameTag(existing[j], i)) {
+            match = j;
+            break;
+          }
+        }
+        unkeyed.put(tagName, match < 0 ? existingCount : match + 1);
+      }
+      Element childElement;
+      if (match < 0) {
+        childElement = create(i);
+      } else {
+        used[match] = true;
+        childElement = existing[match];
+      }
+      update(childElement, i);
+      matches[c] = match;
+      children[c++] = childElement;
+    }
+
+    // Remove the unmatched children, then insert the created children and move the matched ones
+    // that are not in order, from the last to the first, before the next child in place.
+    for (int j = 0; j < existingCount; j++) {
+      if (!used[j]) {
+        element.removeChild(existing[j]);
+        mutationCount++;
+      }
+    }
+    boolean[] inPlace = findInPlace(matches);
+    Node next = null;
+    for (int i = childCount - 1; i >= 0; i--) {
+      if (!inPlace[i]) {
+        element.insertBefore(children[i], next);
+        mutationCount++;
+      }
+      next = children[i];
+    }
+  }
+
+  /**
+   * Find the matched children that can stay in place, which are those on a longest increasing
+   * subsequence of the existing indices, so that the fewest children are moved.
+   *
+   * @param matches the index of the existing child that each new child was matched to, or -1
+   * @return whether each new child is already in place
+   */
+  private static boolean[] findInPlace(int[] matches) {
+    int count = matches.length;
+    // For each length minus one, the child that ends the increasing subsequence of that length
+    // with the lowest existing index.
+    int[] tails = new int[count];
+    // The previous child of each child in its increasing subsequence, or -1.
+    int[] previous = new int[count];
+    int length = 0;
+    for (int i = 0; i < count; i++) {
+      int match = matches[i];
+      if (match < 0) {
+        continue;
+      }
+      int low = 0;
+      int high = length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (matches[tails[middle]] < match) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      previous[i] = low == 0 ? -1 : tails[low - 1];
+      tails[low] = i;
+      if (low == length) {
+        length++;
+      }
+    }
+    boolean[] inPlace = new boolean[count];
+    for (int i = length == 0 ? -1 : tails[length - 1]; i >= 0; i = previous[i]) {
+      inPlace[i] = true;
+    }
+    return inPlace;
+  }
+
+  /** Update an element to match the operations of the start operation at the specified index. */
+  private void update(Element element, int start) {
+    int content = findContent(start);
+
+    // Update the attributes and the style.
+    StringBuilder style = null;
+    for (int i = start + 1; i < content; i++) {
+      String name = recording.getName(i);
+      String value = recording.getValue(i);
+      if (recording.getOp(i) == ElementRecording.STYLE) {
+        if (style == null) {
+          style = new StringBuilder();
+        }
+        style.append(name).append(':').append(value).append(';');
+      } else {
+        updateAttribute(element, name, value);
+      }
+    }
+    if (style != null) {
+      updateAttribute(element, "style", style.toString());
+    }
+    String[] names = element.getAttributeNames();
+    for (String name : names) {
+      if (!isRecordedAttribute(name, start, content, style != null)) {
+        element.removeAttribute(name);
+        mutationCount++;
+      }
+    }
+
+    // Update the content.
+    int end = ends[start];
+    switch (recording.getOp(content)) {
+      case ElementRecording.TEXT:
+        String text = recording.getValue(content);
+        Node first = element.getFirstChild();
+        boolean isSameText =
+            first == null
+                ? text.isEmpty()
+                : first.getNextSibling() == null
+                    && first.getNodeType() == Node.TEXT_NODE
+                    && text.equals(first.getNodeValue());
+        if (!isSameText) {
+          element.setInnerText(text);
+          mutationCount++;
+        }
+        break;
+      case ElementRecording.HTML:
+        String html = recording.getValue(content);
+        if (!html.equals(element.getInnerHTML())) {
+          element.setInnerHTML(html);
+          mutationCount++;
+        }
+        break;
+      default:
+        updateChildren(element, content, end);
+        break;
+    }
+  }
+
+  /** Set an attribute unless it already has the value. */
+  private void updateAttribute(Element element, String name, String value) {
+    if (!element.hasAttribute(name) || !value.equals(element.getAttribute(name))) {
+      element.setAttribute(name, value);
+      mutationCount++;
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import org.gwtproject.dom.client.Element;
+import org.gwtproject.safehtml.shared.SafeHtmlUtils;
+
+/**
+ * A growable log of element builder operations that can be replayed through any {@link
+ * ElementBuilderFactory}.
+ *
+ * <p>Operations are kept in parallel arrays that are reused after {@link #clear()}, so recording
+ * does not allocate once the arrays have grown to the size of the recorded tree.
+ */
+final class ElementRecording {
+
+  /** Add an attribute. The name is the attribute name, the value its value. */
+  static final int ATTRIBUTE = 0;
+
+  /** End the current element. */
+  static final int END = 1;
+
+  /** Set the inner HTML. The value is the trusted HTML. */
+  static final int HTML = 2;
+
+  /** Start an element. The name is the tag name. */
+  static final int START = 3;
+
+  /** Add a style property. The name is the property name, the value its trusted value. */
+  static final int STYLE = 4;
+
+  /** Set the inner text. The value is the text. */
+  static final int TEXT = 5;
+
+  /**
+   * Check if an element is started without an end tag by the HTML builder, like the elements of the
+   * typed builders whose end tag is forbidden.
+   */
+  static boolean isEndTagForbidden(String tagName) {
+    switch (tagName) {
+      case "area":
+      case "base":
+      case "br":
+      case "col":
+      case "frame":
+      case "hr":
+      case "img":
+      case "input":
+      case "link":
+      case "meta":
+      case "param":
+      case "source":
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Replay a single operation on a builder.
+   *
+   * @param builder the builder of the current element
+   * @param op the operation
+   * @param name the name of the operation
+   * @param value the value of the operation
+   * @return the builder to use for the next operation
+   */
+  static ElementBuilderBase<?> replay(
+      ElementBuilderBase<?> builder, int op, String name, String value) {
+    switch (op) {
+      case ATTRIBUTE:
+        builder.attribute(name, value);
+        break;
+      case END:
+        builder.end();
+        break;
+      case HTML:
+        builder.html(SafeHtmlUtils.fromTrustedString(value));
+        break;
+      case START:
+        // All builders share the current element, so the child builder can be used from here on.
+        return builder.trustedStart(name);
+      case STYLE:
+        builder.style().trustedProperty(name, value);
+        break;
+      case TEXT:
+        builder.text(value);
+        break;
+      default:
+        throw new IllegalStateException("Unknown builder operation: " + op);
+    }
+    return builder;
+  }
+
+  private int[] ops = new int[16];
+  private String[] names = new String[16];
+  private String[] values = new String[16];
+  private int size;
+
+  /**
+   * Record an operation.
+   *
+   * @param op the operation
+   * @param name the name of the operation, or null
+   * @param value the value of the operation, or null
+   */
+  void add(int op, String name, String value) {
+    if (size == ops.length) {
+      grow();
+    }
+    ops[size] = op;
+    names[size] = name;
+    values[size] = value;
+    size++;
+  }
+
+  /** Remove all operations, keeping the arrays for the next recording. */
+  void clear() {
+    for (int i = 0; i < size; i++) {
+      names[i] = null;
+      values[i] = null;
+    }
+    size = 0;
+  }
+
+  /**
+   * Build the recorded element with a factory. The first operation must start the root element.
+   *
+   * @param factory the factory that builds the element
+   * @return the built element
+   */
+  Element replay(ElementBuilderFactory factory) {
+    if (size == 0 || ops[0] != START) {
+      throw new IllegalStateException("The recording does not start with an element.");
+    }
+    ElementBuilderBase<?> builder = factory.trustedCreate(names[0]);
+    for (int i = 1; i < size; i++) {
+      builder = replay(builder, ops[i], names[i], values[i]);
+    }
+    return builder.finish();
+  }
+
+  /**
+   * Get the name of an operation.
+   *
+   * @param index the index of the operation
+   * @return the name, or null if the operation has none
+   */
+  String getName(int index) {
+    return names[index];
+  }
+
+  /**
+   * Get an operation.
+   *
+   * @param index the index of the operation
+   * @return one of the operation constants
+   */
+  int getOp(int index) {
+    return ops[index];
+  }
+
+  /**
+   * Get the value of an operation.
+   *
+   * @param index the index of the operation
+   * @return the value, or null if the operation has none
+   */
+  String getValue(int index) {
+    return values[index];
+  }
+
+  /**
+   * Get the number of recorded operations.
+   *
+   * @return the number of operations
+   */
+  int size() {
+    return size;
+  }
+
+  /** Double the capacity of the arrays. */
+  private void grow() {
+    int capacity = ops.length * 2;
+    int[] newOps = new int[capacity];
+    String[] newNames = new String[capacity];
+    String[] newValues = new String[capacity];
+    for (int i = 0; i < size; i++) {
+      newOps[i] = ops[i];
+      newNames[i] = names[i];
+      newValues[i] = values[i];
+    }
+    ops = newOps;
+    names = newNames;
+    values = newValues;
+  }
+}
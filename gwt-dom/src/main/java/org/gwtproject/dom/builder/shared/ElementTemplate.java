@@ -0,0 +1,463 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.dom.client.Document;
+import org.gwtproject.dom.client.Element;
+import org.gwtproject.safehtml.shared.SafeHtml;
+import org.gwtproject.safehtml.shared.SafeHtmlUtils;
+
+/**
+ * A compiled element skeleton that is rendered many times with different values.
+ *
+ * <p>A template is recorded once as a sequence of builder operations, in which text, attribute
+ * values and style property values can be left open as named holes. When the template is compiled,
+ * the sequence is run through the HTML builder a single time, which validates it and produces the
+ * static markup between the holes. Rendering a template then only interleaves those precomputed
+ * segments with the escaped hole values, without running the builder state machine for each
+ * element:
+ *
+ * <pre>
+ * ElementTemplate row = ElementTemplate.record()
+ *     .start("tr").attributeHole("id", "id")
+ *     .start("td").textHole("name").end()
+ *     .start("td").trustedStylePropertyHole("color", "color").textHole("status").end()
+ *     .compile();
+ *
+ * for (Item item : items) {
+ *   row.appendTo(tbody, item.getId(), item.getName(), item.getColor(), item.getStatus());
+ * }
+ * </pre>
+ *
+ * <p>Hole values are passed in the order in which the holes first appear in the recording. A hole
+ * name that is used more than once refers to the same value. Text and attribute values are escaped,
+ * style property values are trusted in the same way as {@link
+ * StylesBuilder#trustedProperty(String, String)}.
+ *
+ * <p>Templates are immutable and can be shared. Builders created by {@link HtmlBuilderFactory}
+ * append the precomputed markup directly. All other builders, such as those created by {@link
+ * org.gwtproject.dom.builder.client.DomBuilderFactory} or HTML builders that record their own
+ * operations, like those of {@link OpLogBuilderFactory}, replay the recorded operations.
+ */
+public final class ElementTemplate {
+
+  /** Records the operations of an {@link ElementTemplate}. */
+  public static final class Recorder {
+
+    private final List<Integer> ops = new ArrayList<Integer>();
+    private final List<String> names = new ArrayList<String>();
+    private final List<String> values = new ArrayList<String>();
+    private final List<String> holes = new ArrayList<String>();
+    private int depth;
+
+    private Recorder() {}
+
+    /**
+     * Add an attribute with a static value to the current element.
+     *
+     * @param name the attribute name, which is escaped
+     * @param value the attribute value, which is escaped
+     * @return this recorder
+     */
+    public Recorder attribute(String name, String value) {
+      return add(ElementRecording.ATTRIBUTE, name, value, null);
+    }
+
+    /**
+     * Add an attribute to the current element whose value is filled in when rendering.
+     *
+     * @param name the attribute name, which is escaped
+     * @param holeName the name of the hole that supplies the escaped value
+     * @return this recorder
+     */
+    public Recorder attributeHole(String name, String holeName) {
+      return add(ElementRecording.ATTRIBUTE, name, null, holeName);
+    }
+
+    /**
+     * Compile the recorded operations. Elements that are still open are ended.
+     *
+     * @return the compiled template
+     * @throws IllegalStateException if no element has been recorded, or the operations are not
+     *     valid for an element builder
+     */
+    public ElementTemplate compile() {
+      if (ops.isEmpty()) {
+        throw new IllegalStateException("A template must contain an element.");
+      }
+      while (depth > 0) {
+        end();
+      }
+      return new ElementTemplate(this);
+    }
+
+    /**
+     * End the current element.
+     *
+     * @return this recorder
+     */
+    public Recorder end() {
+      if (depth == 0) {
+        throw new IllegalStateException("There are no open elements to end.");
+      }
+      depth--;
+      return add(ElementRecording.END, null, null, null);
+    }
+
+    /**
+     * Set static HTML as the content of the current element.
+     *
+     * @param html the HTML
+     * @return this recorder
+     */
+    public Recorder html(SafeHtml html) {
+      return add(ElementRecording.HTML, null, html.asString(), null);
+    }
+
+    /**
+     * Start a new element. The first element started is the root of the template.
+     *
+     * @param tagName the tag name of the element, which is validated when the template is compiled
+     * @return this recorder
+     */
+    public Recorder start(String tagName) {
+      depth++;
+      return add(ElementRecording.START, tagName, null, null);
+    }
+
+    /**
+     * Set static text as the content of the current element.
+     *
+     * @param text the text, which is escaped
+     * @return this recorder
+     */
+    public Recorder text(String text) {
+      return add(ElementRecording.TEXT, null, text, null);
+    }
+
+    /**
+     * Set the content of the current element to text that is filled in when rendering.
+     *
+     * @param holeName the name of the hole that supplies the escaped text
+     * @return this recorder
+     */
+    public Recorder textHole(String holeName) {
+      return add(ElementRecording.TEXT, null, null, holeName);
+    }
+
+    /**
+     * Add a style property with a static value to the current element.
+     *
+     * @param name the property name, in camelCase or hyphenated form
+     * @param value the trusted property value
+     * @return this recorder
+     * @see StylesBuilder#trustedProperty(String, String)
+     */
+    public Recorder trustedStyleProperty(String name, String value) {
+      return add(ElementRecording.STYLE, name, value, null);
+    }
+
+    /**
+     * Add a style property to the current element whose value is filled in when rendering.
+     *
+     * @param name the property name, in camelCase or hyphenated form
+     * @param holeName the name of the hole that supplies the trusted property value
+     * @return this recorder
+     * @see StylesBuilder#trustedProperty(String, String)
+     */
+    public Recorder trustedStylePropertyHole(String name, String holeName) {
+      return add(ElementRecording.STYLE, name, null, holeName);
+    }
+
+    private Recorder add(int op, String name, String value, String hole) {
+      if (op != ElementRecording.START && op != ElementRecording.END && depth == 0) {
+        throw new IllegalStateException("An element must be started first.");
+      }
+      ops.add(op);
+      names.add(name);
+      values.add(value);
+      holes.add(hole);
+      return this;
+    }
+  }
+
+  private static final String STYLE_PLACEHOLDER = "0";
+
+  /**
+   * Start recording a new template.
+   *
+   * @return a {@link Recorder}
+   */
+  public static Recorder record() {
+    return new Recorder();
+  }
+
+  /*
+   * The recorded operations, kept in parallel arrays to replay them without
+   * casts. A hole index of -1 means that the operation has a static value.
+   */
+  private final int[] ops;
+  private final String[] names;
+  private final String[] values;
+  private final int[] holes;
+
+  private final String[] holeNames;
+
+  /*
+   * The compiled markup: segments[0], then the value of hole segmentHoles[0],
+   * then segments[1], and so on.
+   */
+  private final String[] segments;
+  private final int[] segmentHoles;
+  private final boolean[] segmentEscaped;
+
+  /** The length of the static markup, used to size the buffer when rendering. */
+  private final int staticLength;
+
+  private ElementTemplate(Recorder recorder) {
+    int count = recorder.ops.size();
+    ops = new int[count];
+    names = recorder.names.toArray(new String[count]);
+    values = recorder.values.toArray(new String[count]);
+    holes = new int[count];
+
+    List<String> holeNameList = new ArrayList<String>();
+    int holeRefs = 0;
+    for (int i = 0; i < count; i++) {
+      ops[i] = recorder.ops.get(i);
+      String hole = recorder.holes.get(i);
+      if (hole == null) {
+        holes[i] = -1;
+      } else {
+        int index = holeNameList.indexOf(hole);
+        if (index < 0) {
+          index = holeNameList.size();
+          holeNameList.add(hole);
+        }
+        holes[i] = index;
+        holeRefs++;
+      }
+    }
+    holeNames = holeNameList.toArray(new String[holeNameList.size()]);
+
+    /*
+     * Build the markup with placeholder hole values, and remember where each
+     * placeholder was inserted. Running the real builder validates the
+     * sequence and guarantees the same markup as HtmlBuilderFactory.
+     */
+    HtmlBuilderImpl impl = new HtmlBuilderImpl();
+    int[] holeStarts = new int[holeRefs];
+    int[] holeEnds = new int[holeRefs];
+    segmentHoles = new int[holeRefs];
+    segmentEscaped = new boolean[holeRefs];
+    int ref = 0;
+    for (int i = 0; i < count; i++) {
+      boolean isHole = holes[i] >= 0;
+      // Where the placeholder of a hole ends in the buffer, and how long it is.
+      int holeEnd = 0;
+      int placeholderLength = 0;
+      boolean escaped = true;
+      switch (ops[i]) {
+        case ElementRecording.ATTRIBUTE:
+          impl.attribute(names[i], isHole ? "" : values[i]);
+          // Before the closing quote.
+          holeEnd = impl.getBufferLength() - 1;
+          break;
+        case ElementRecording.END:
+          impl.end();
+          break;
+        case ElementRecording.HTML:
+          impl.html(SafeHtmlUtils.fromTrustedString(values[i]));
+          break;
+        case ElementRecording.START:
+          if (ElementRecording.isEndTagForbidden(names[i])) {
+            impl.trustedStartEndTagForbidden(names[i]);
+          } else {
+            impl.trustedStart(names[i]);
+          }
+          break;
+        case ElementRecording.STYLE:
+          // Style values cannot be empty, so a one character placeholder is cut out.
+          impl.style().trustedProperty(names[i], isHole ? STYLE_PLACEHOLDER : values[i]);
+          // Before the closing semicolon.
+          holeEnd = impl.getBufferLength() - 1;
+          placeholderLength = STYLE_PLACEHOLDER.length();
+          escaped = false;
+          break;
+        case ElementRecording.TEXT:
+          impl.text(isHole ? "" : values[i]);
+          holeEnd = impl.getBufferLength();
+          break;
+        default:
+          throw new IllegalStateException("Unknown template operation: " + ops[i]);
+      }
+      if (isHole) {
+        holeStarts[ref] = holeEnd - placeholderLength;
+        holeEnds[ref] = holeEnd;
+        segmentEscaped[ref] = escaped;
+        segmentHoles[ref++] = holes[i];
+      }
+    }
+
+    String markup = impl.asSafeHtml().asString();
+    segments = new String[holeRefs + 1];
+    int start = 0;
+    for (int i = 0; i < holeRefs; i++) {
+      segments[i] = markup.substring(start, holeStarts[i]);
+      start = holeEnds[i];
+    }
+    segments[holeRefs] = markup.substring(start);
+    staticLength = markup.length();
+  }
+
+  /**
+   * Append the template as a child of the current element of a builder.
+   *
+   * @param parent the builder of the parent element
+   * @param values the hole values, in the order of {@link #getHoleName(int)}
+   * @throws IllegalArgumentException if the number of values does not match the number of holes
+   */
+  public void appendTo(ElementBuilderBase<?> parent, String... values) {
+    if (parent instanceof HtmlElementBuilderBase
+        && ((HtmlElementBuilderBase<?>) parent).getDelegate().canAppendHtml()) {
+      ((HtmlElementBuilderBase<?>) parent).appendTemplate(this, values);
+    } else {
+      assertValueCount(values);
+      ElementBuilderBase<?> builder = parent;
+      for (int i = 0; i < ops.length; i++) {
+        builder = replay(builder, i, values);
+      }
+    }
+  }
+
+  /**
+   * Create a new element from the template.
+   *
+   * @param factory the factory that builds the element
+   * @param values the hole values, in the order of {@link #getHoleName(int)}
+   * @return the new element
+   * @throws IllegalArgumentException if the number of values does not match the number of holes
+   */
+  public Element create(ElementBuilderFactory factory, String... values) {
+    if (factory instanceof HtmlBuilderFactory) {
+      Element tmp = Document.get().createDivElement();
+      tmp.setInnerSafeHtml(render(values));
+      return tmp.getFirstChildElement();
+    }
+
+    assertValueCount(values);
+    ElementBuilderBase<?> builder = factory.trustedCreate(names[0]);
+    for (int i = 1; i < ops.length; i++) {
+      builder = replay(builder, i, values);
+    }
+    return builder.finish();
+  }
+
+  /**
+   * Get the number of holes in the template.
+   *
+   * @return the number of values needed to render the template
+   */
+  public int getHoleCount() {
+    return holeNames.length;
+  }
+
+  /**
+   * Get the index of a hole, which is the position of its value when rendering.
+   *
+   * @param holeName the name of the hole
+   * @return the index of the hole, or -1 if the template does not have a hole with that name
+   */
+  public int getHoleIndex(String holeName) {
+    for (int i = 0; i < holeNames.length; i++) {
+      if (holeNames[i].equals(holeName)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Get the name of a hole.
+   *
+   * @param index the index of the hole
+   * @return the name of the hole
+   */
+  public String getHoleName(int index) {
+    return holeNames[index];
+  }
+
+  /**
+   * Render the template as HTML.
+   *
+   * @param values the hole values, in the order of {@link #getHoleName(int)}
+   * @return the HTML
+   * @throws IllegalArgumentException if the number of values does not match the number of holes
+   */
+  public SafeHtml render(String... values) {
+    StringBuilder sb = new StringBuilder(staticLength + 16 * segmentHoles.length);
+    appendHtml(sb, values);
+
+    // The segments come from the builder and the values are escaped or trusted.
+    return SafeHtmlUtils.fromTrustedString(sb.toString());
+  }
+
+  /**
+   * Append the rendered markup to a buffer.
+   *
+   * @param sb the buffer to append to
+   * @param values the hole values
+   */
+  void appendHtml(StringBuilder sb, String[] values) {
+    assertValueCount(values);
+    sb.append(segments[0]);
+    for (int i = 0; i < segmentHoles.length; i++) {
+      String value = values[segmentHoles[i]];
+      if (segmentEscaped[i]) {
+        HtmlBuilderImpl.appendEscaped(sb, value);
+      } else {
+        sb.append(value);
+      }
+      sb.append(segments[i + 1]);
+    }
+  }
+
+  private void assertValueCount(String[] values) {
+    if (values.length != holeNames.length) {
+      throw new IllegalArgumentException(
+          "The template has "
+              + holeNames.length
+              + " holes, but "
+              + values.length
+              + " values were given.");
+    }
+  }
+
+  /**
+   * Replay a recorded operation on a builder.
+   *
+   * @param builder the builder of the current element
+   * @param i the index of the operation
+   * @param values the hole values
+   * @return the builder to use for the next operation
+   */
+  private ElementBuilderBase<?> replay(ElementBuilderBase<?> builder, int i, String[] values) {
+    String value = holes[i] < 0 ? this.values[i] : values[holes[i]];
+    return ElementRecording.replay(builder, ops[i], names[i], value);
+  }
+}
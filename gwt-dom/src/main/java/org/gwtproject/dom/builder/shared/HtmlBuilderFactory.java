@@ -15,10 +15,22 @@
  */
 package org.gwtproject.dom.builder.shared;
 
-/** Factory for creating element builders that use string concatenation to generate HTML. */
+/**
+ * Factory for creating element builders that use string concatenation to generate HTML.
+ *
+ * <p>The factory returned by {@link #get()} is stateless and can be shared by any number of
+ * threads, for example to render HTML from the request threads of a server. Each builder it creates
+ * has its own state and must be confined to the thread that created it. The other shared state of
+ * the HTML builders is either immutable or safe to share: compiled {@link ElementTemplate}s can be
+ * rendered from many threads, and the cache of converted style property names is a lock-free,
+ * bounded table of immutable entries. {@link HtmlPooledBuilderFactory} and {@link
+ * HtmlStreamingBuilderFactory} instances are not thread-safe and need one instance per thread. An
+ * {@link ElementBuilderListener} receives the operations of all threads at once, so it must be
+ * thread-safe if builders are used from several threads. {@link ElementBuilderCounters} is not.
+ */
 public class HtmlBuilderFactory extends ElementBuilderFactory {
 
-  private static HtmlBuilderFactory instance;
+  private static final HtmlBuilderFactory instance = new HtmlBuilderFactory();
 
   /**
    * Get the instance of the {@link HtmlBuilderFactory}.
@@ -31,9 +43,6 @@ public class HtmlBuilderFactory extends ElementBuilderFactory {
    * @return the {@link ElementBuilderFactory}
    */
   public static HtmlBuilderFactory get() {
-    if (instance == null) {
-      instance = new HtmlBuilderFactory();
-    }
     return instance;
   }
 
@@ -389,7 +398,8 @@ public class HtmlBuilderFactory extends ElementBuilderFactory {
     return impl().trustedStart(tagName);
   }
 
-  private HtmlBuilderImpl impl() {
+  /** Create the implementation that backs a new builder. */
+  HtmlBuilderImpl impl() {
     return new HtmlBuilderImpl();
   }
 }
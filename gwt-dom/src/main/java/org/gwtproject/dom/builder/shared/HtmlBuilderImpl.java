@@ -15,6 +15,8 @@
  */
 package org.gwtproject.dom.builder.shared;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import org.gwtproject.dom.client.*;
 import org.gwtproject.safecss.shared.SafeStyles;
 import org.gwtproject.safehtml.shared.SafeHtml;
@@ -42,6 +44,7 @@ class HtmlBuilderImpl extends ElementBuilderImpl {
   private final HtmlDivBuilder divBuilder = new HtmlDivBuilder(this);
   private HtmlDListBuilder dListBuilder;
   private final HtmlElementBuilder elementBuilder = new HtmlElementBuilder(this);
+  private HtmlElementBuilder endTagForbiddenElementBuilder;
   private HtmlFieldSetBuilder fieldSetBuilder;
   private HtmlFormBuilder formBuilder;
   private HtmlFrameBuilder frameBuilder;
@@ -88,26 +91,303 @@ class HtmlBuilderImpl extends ElementBuilderImpl {
    * org.gwtproject.safehtml.shared.SafeHtmlBuilder} because it does some rudimentary checks that
    * the HTML tags are complete. Instead, we escape values before appending them.
    */
-  private final StringBuilder sb = new StringBuilder();
+  private StringBuilder sb;
+
+  /** The sink that completed markup is streamed to, or null to keep everything in {@link #sb}. */
+  private final Appendable out;
+
+  /** The buffered length at which completed markup is written to {@link #out}. */
+  private final int flushThreshold;
+
+  /** The pool that this builder is returned to once its output has been taken, if any. */
+  private HtmlPooledBuilderFactory pool;
+
+  /** True while this builder waits in its pool for the next render. */
+  private boolean isReleased;
+
+  /** The factory that is told the length of the output to size later buffers, if any. */
+  private HtmlSizedBuilderFactory sizer;
+
+  HtmlBuilderImpl() {
+    this(null, 0);
+  }
+
+  /**
+   * Construct a builder that streams its output.
+   *
+   * @param out the sink that completed markup is written to, or null to buffer all of it
+   * @param flushThreshold the number of buffered characters that triggers a write to the sink
+   */
+  HtmlBuilderImpl(Appendable out, int flushThreshold) {
+    this(out, flushThreshold, false);
+  }
+
+  /**
+   * Construct a builder that streams its output, and optionally builds a fragment.
+   *
+   * @param out the sink that completed markup is written to, or null to buffer all of it
+   * @param flushThreshold the number of buffered characters that triggers a write to the sink
+   * @param isFragment true to allow any number of top level elements
+   */
+  HtmlBuilderImpl(Appendable out, int flushThreshold, boolean isFragment) {
+    this(out, flushThreshold, isFragment, 16);
+  }
+
+  /**
+   * Construct a builder whose buffer starts with the specified capacity.
+   *
+   * @param initialCapacity the number of characters the buffer holds before it has to grow
+   */
+  HtmlBuilderImpl(int initialCapacity) {
+    this(null, 0, false, initialCapacity);
+  }
+
+  private HtmlBuilderImpl(
+      Appendable out, int flushThreshold, boolean isFragment, int initialCapacity) {
+    super(isFragment);
+    this.out = out;
+    this.flushThreshold = flushThreshold;
+    this.sb = new StringBuilder(initialCapacity);
+  }
+
+  /**
+   * End all open tags and return a read-only view of the buffered HTML, without copying it.
+   *
+   * <p>The view reads the buffer of this builder, so it is only valid until the builder is reset or
+   * reused. For the same reason, a pooled builder is not returned to its pool.
+   *
+   * @return the HTML
+   */
+  public CharSequence asCharSequence() {
+    long finishNanos = isInstrumented() ? System.nanoTime() : 0;
+    CharSequence html = new BufferView(endOutput("asCharSequence()"));
+    onFinished(finishNanos);
+    return html;
+  }
 
   /** Return the HTML as a {@link SafeHtml} string. */
   public SafeHtml asSafeHtml() {
-    // End all open tags.
-    endAllTags();
+    long finishNanos = isInstrumented() ? System.nanoTime() : 0;
 
     /*
      * sb is trusted because we only append trusted strings or escaped strings
      * to it.
      */
-    return SafeHtmlUtils.fromTrustedString(sb.toString());
+    SafeHtml html = SafeHtmlUtils.fromTrustedString(endOutput("asSafeHtml()").toString());
+    releaseOutput(finishNanos);
+    return html;
   }
 
+  /**
+   * End all open tags and append the HTML to a destination, without creating an intermediate
+   * string.
+   *
+   * <p>The markup is only trusted to the extent that the destination does not alter it. Errors
+   * thrown by the destination are rethrown as {@link UncheckedIOException}.
+   *
+   * @param dest the destination to append the HTML to
+   */
+  public void writeTo(Appendable dest) {
+    if (dest == null) {
+      throw new NullPointerException("dest cannot be null");
+    }
+    long finishNanos = isInstrumented() ? System.nanoTime() : 0;
+    StringBuilder html = endOutput("writeTo()");
+    try {
+      dest.append(html);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    releaseOutput(finishNanos);
+  }
+
+  /** End all open tags and write the remaining markup to the sink. */
+  public void flush() {
+    if (out == null) {
+      throw new IllegalStateException(
+          "flush() can only be called when the HTML is streamed. Use asSafeHtml() instead.");
+    }
+    long finishNanos = isInstrumented() ? System.nanoTime() : 0;
+
+    // End all open tags.
+    endAllTags();
+    writeBuffer();
+    onFinished(finishNanos);
+  }
+
+  /**
+   * End all open tags and parse the HTML of all top level elements into a single {@link
+   * DocumentFragment}.
+   *
+   * @return the fragment
+   */
+  public DocumentFragment finishFragment() {
+    onFinishFragment();
+    return Document.get().createDocumentFragment(asSafeHtml());
+  }
+
+  @Override
+  public void reset() {
+    assertNotReleased();
+    super.reset();
+    sb.setLength(0);
+  }
+
+  /**
+   * Mark this builder as waiting in its pool, or as handed out to a new render. While it waits,
+   * every use of it or of one of its element builders throws an {@link IllegalStateException}.
+   *
+   * @param isReleased true if the builder has been returned to its pool
+   */
+  void setReleased(boolean isReleased) {
+    this.isReleased = isReleased;
+  }
+
+  /**
+   * Replace the buffer with a smaller one if it has grown past the specified capacity.
+   *
+   * @param maxRetainedCapacity the largest capacity that is kept for the next render
+   */
+  void trimBuffer(int maxRetainedCapacity) {
+    if (sb.capacity() > maxRetainedCapacity) {
+      sb = new StringBuilder(maxRetainedCapacity);
+    }
+  }
+
+  /**
+   * Set the pool that this builder is returned to when {@link #asSafeHtml()} is called.
+   *
+   * @param pool the pool, or null if the builder is not pooled
+   */
+  void setPool(HtmlPooledBuilderFactory pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Set the factory that is told the length of the output when it is taken.
+   *
+   * @param sizer the factory, or null if the output length is not tracked
+   */
+  void setSizer(HtmlSizedBuilderFactory sizer) {
+    this.sizer = sizer;
+  }
+
+  /**
+   * Append the rendered markup of a template as a complete child of the current element.
+   *
+   * @param template the template to render
+   * @param values the hole values, in the order of {@link ElementTemplate#getHoleName(int)}
+   * @throws IllegalStateException if markup cannot be appended to this builder
+   */
+  void appendTemplate(ElementTemplate template, String[] values) {
+    assertCanAppendHtml("appendTemplate()");
+    onAppendChildElement();
+    template.appendHtml(sb, values);
+    maybeFlush();
+  }
+
+  /**
+   * End all open tags of a fragment of table rows and append its HTML as the next children of the
+   * current table section. The fragment is finished as if {@link #asSafeHtml()} had been called on
+   * it.
+   *
+   * @param rows the fragment whose top level elements are rows
+   * @throws IllegalStateException if markup cannot be appended to this builder
+   */
+  void appendRows(HtmlBuilderImpl rows) {
+    if (rows == this) {
+      throw new IllegalArgumentException("A builder cannot be appended to itself.");
+    }
+    assertCanAppendHtml("appendRows()");
+    assertTableSectionOpen();
+    long finishNanos = isInstrumented() ? System.nanoTime() : 0;
+    onAppendChildElement();
+    sb.append(rows.endOutput("appendRows()"));
+    rows.releaseOutput(finishNanos);
+    maybeFlush();
+  }
+
+  /**
+   * Assert that the current element is a table section, so that rows can be appended to it.
+   *
+   * @throws IllegalStateException if the current element is not a tbody, tfoot or thead
+   */
+  void assertTableSectionOpen() {
+    String tagName = getOpenTagName();
+    if (!TableSectionElement.TAG_TBODY.equals(tagName)
+        && !TableSectionElement.TAG_TFOOT.equals(tagName)
+        && !TableSectionElement.TAG_THEAD.equals(tagName)) {
+      throw new IllegalStateException(
+          "Rows can only be appended to an open table section, but the current element is "
+              + tagName);
+    }
+  }
+
+  /**
+   * End all open tags of another builder and splice its HTML into the current element as inner
+   * HTML, without creating an intermediate string. The other builder is finished as if {@link
+   * #asSafeHtml()} had been called on it.
+   *
+   * @param child the builder whose HTML is set on the current element
+   */
+  void html(HtmlBuilderImpl child) {
+    if (child == this) {
+      throw new IllegalArgumentException("A builder cannot be spliced into itself.");
+    }
+    long finishNanos = isInstrumented() ? System.nanoTime() : 0;
+    StringBuilder html = child.endOutput("html()");
+    onHtml(html.length());
+    doHtmlImpl(html);
+    child.releaseOutput(finishNanos);
+  }
+
+  /**
+   * Check if rendered markup can be appended to the buffer directly, bypassing the builder
+   * operations. Subclasses that record the operations return false while they are recording, so
+   * that callers use the builder operations instead.
+   *
+   * @return true by default
+   */
+  boolean canAppendHtml() {
+    return true;
+  }
+
+  /** Get the number of characters in the buffer. */
+  int getBufferLength() {
+    return sb.length();
+  }
+
+  /**
+   * Replace the buffered HTML with the buffered HTML of another builder. The other builder must be
+   * in the same state as this one, so that the rest of the HTML can be appended to it.
+   *
+   * @param other the builder to copy the HTML from
+   */
+  void copyOutputFrom(HtmlBuilderImpl other) {
+    sb.setLength(0);
+    sb.append(other.sb);
+  }
+
+  /**
+   * Called before the buffer is read. Subclasses that do not generate HTML for every operation must
+   * complete the buffer here.
+   */
+  void prepareOutput() {}
+
   public void attribute(String name, int value) {
-    trustedAttribute(escape(name), value);
+    assertCanAddAttributeImpl();
+    sb.append(" ");
+    appendEscaped(sb, name);
+    sb.append("=\"").append(value).append("\"");
   }
 
   public void attribute(String name, String value) {
-    trustedAttribute(escape(name), value);
+    assertCanAddAttributeImpl();
+    sb.append(" ");
+    appendEscaped(sb, name);
+    sb.append("=\"");
+    appendEscaped(sb, value);
+    sb.append("\"");
   }
 
   public HtmlAnchorBuilder startAnchor() {
@@ -558,6 +838,21 @@ class HtmlBuilderImpl extends ElementBuilderImpl {
     return style();
   }
 
+  /**
+   * Add a numeric style property without creating an intermediate {@link SafeStyles}. The output
+   * is identical to that of {@code SafeStylesUtils.fromTrustedNameAndValue(name, value + suffix)}.
+   *
+   * @param name the hyphenated property name
+   * @param value the numeric value
+   * @param suffix the unit suffix, or the empty string
+   * @return the styles builder
+   */
+  public StylesBuilder styleProperty(String name, double value, String suffix) {
+    assertCanAddStylePropertyImpl();
+    sb.append(name).append(':').append(value).append(suffix).append(';');
+    return style();
+  }
+
   /** Add a trusted attribute without escaping the name. */
   public void trustedAttribute(String name, int value) {
     assertCanAddAttributeImpl();
@@ -567,14 +862,33 @@ class HtmlBuilderImpl extends ElementBuilderImpl {
   /** Add a trusted attribute without escaping the name. The value is still escaped. */
   public void trustedAttribute(String name, String value) {
     assertCanAddAttributeImpl();
-    sb.append(" ").append(name).append("=\"").append(escape(value)).append("\"");
+    sb.append(" ").append(name).append("=\"");
+    appendEscaped(sb, value);
+    sb.append("\"");
   }
 
   public HtmlElementBuilder trustedStart(String tagName) {
+    // The tag name comes from the caller, so it must be validated before it is appended.
+    assertValidTagName(tagName);
     trustedStart(tagName, elementBuilder);
     return elementBuilder;
   }
 
+  /**
+   * Start a generic element whose end tag is forbidden, such as an element played back from an
+   * {@link ElementOpLog}. The tagName is not checked or escaped.
+   *
+   * @param tagName the tag name
+   * @return the builder of the element
+   */
+  HtmlElementBuilder trustedStartEndTagForbidden(String tagName) {
+    if (endTagForbiddenElementBuilder == null) {
+      endTagForbiddenElementBuilder = new HtmlElementBuilder(this, true);
+    }
+    trustedStart(tagName, endTagForbiddenElementBuilder);
+    return endTagForbiddenElementBuilder;
+  }
+
   @Override
   protected void doCloseStartTagImpl() {
     sb.append(">");
@@ -588,6 +902,7 @@ class HtmlBuilderImpl extends ElementBuilderImpl {
   @Override
   protected void doEndStartTagImpl() {
     sb.append(" />");
+    maybeFlush();
   }
 
   @Override
@@ -603,6 +918,7 @@ class HtmlBuilderImpl extends ElementBuilderImpl {
      * checked before they are added to the stack.
      */
     sb.append("</").append(tagName).append(">");
+    maybeFlush();
   }
 
   @Override
@@ -617,6 +933,24 @@ class HtmlBuilderImpl extends ElementBuilderImpl {
     sb.append(html.asString());
   }
 
+  /**
+   * Open the start tag of an element.
+   *
+   * @param tagName the tag name, which has already been checked
+   */
+  void doStartTagImpl(String tagName) {
+    sb.append("<").append(tagName);
+  }
+
+  /**
+   * Append trusted HTML as the inner HTML of the current element.
+   *
+   * @param html the HTML to append
+   */
+  void doHtmlImpl(CharSequence html) {
+    sb.append(html);
+  }
+
   @Override
   protected void doOpenStyleImpl() {
     sb.append(" style=\"");
@@ -624,16 +958,71 @@ class HtmlBuilderImpl extends ElementBuilderImpl {
 
   @Override
   protected void doTextImpl(String text) {
-    sb.append(escape(text));
+    appendEscaped(sb, text);
+  }
+
+  @Override
+  protected int getOutputLength() {
+    // Streamed output has already left the buffer.
+    return out == null ? sb.length() : -1;
   }
 
   /**
-   * Escape a string.
+   * HTML-escape a string directly into a buffer.
+   *
+   * <p>The output is the same as {@link SafeHtmlUtils#htmlEscape(String)}, but the string is
+   * scanned once and the runs between HTML meta-characters are appended straight from the input, so
+   * no intermediate strings are created. A string without meta-characters is appended as is.
    *
+   * @param sb the buffer to append to
    * @param s the string to escape
    */
-  private String escape(String s) {
-    return SafeHtmlUtils.htmlEscape(s);
+  static void appendEscaped(StringBuilder sb, String s) {
+    int length = s.length();
+    int runStart = 0;
+    for (int i = 0; i < length; i++) {
+      String entity;
+      switch (s.charAt(i)) {
+        case '&':
+          entity = "&amp;";
+          break;
+        case '<':
+          entity = "&lt;";
+          break;
+        case '>':
+          entity = "&gt;";
+          break;
+        case '"':
+          entity = "&quot;";
+          break;
+        case '\'':
+          entity = "&#39;";
+          break;
+        default:
+          continue;
+      }
+      sb.append(s, runStart, i).append(entity);
+      runStart = i + 1;
+    }
+
+    if (runStart == 0) {
+      // Fast path: nothing to escape.
+      sb.append(s);
+    } else {
+      sb.append(s, runStart, length);
+    }
+  }
+
+  /**
+   * Write the buffer to the sink if it has grown past the flush threshold.
+   *
+   * <p>Only called right after an element has been ended, when everything in the buffer is complete
+   * markup that can no longer change.
+   */
+  private void maybeFlush() {
+    if (out != null && sb.length() >= flushThreshold) {
+      writeBuffer();
+    }
   }
 
   /** Start a button with the specified type. */
@@ -680,9 +1069,109 @@ class HtmlBuilderImpl extends ElementBuilderImpl {
     return tableSectionBuilder;
   }
 
+  /**
+   * End all open tags so that the buffer holds the complete output.
+   *
+   * @param method the name of the calling method, for the error message
+   * @return the buffer
+   * @throws IllegalStateException if the HTML is streamed
+   */
+  private StringBuilder endOutput(String method) {
+    assertNotReleased();
+    if (out != null) {
+      throw new IllegalStateException(
+          method + " cannot be called when the HTML is streamed. Use flush() instead.");
+    }
+    prepareOutput();
+    endAllTags();
+    if (sizer != null) {
+      sizer.onOutput(sb.length());
+    }
+    return sb;
+  }
+
+  /**
+   * Report the finished output and return the builder to its pool, if any. Must be called after
+   * the output has been taken from the buffer.
+   *
+   * @param finishNanos the {@link System#nanoTime()} when finishing started, or 0
+   */
+  private void releaseOutput(long finishNanos) {
+    onFinished(finishNanos);
+    if (pool != null) {
+      pool.release(this);
+    }
+  }
+
+  /**
+   * Assert that markup can be appended to the buffer directly.
+   *
+   * @param method the name of the calling method, for the error message
+   * @throws IllegalStateException if the builder records its operations
+   */
+  private void assertCanAppendHtml(String method) {
+    if (!canAppendHtml()) {
+      throw new IllegalStateException(
+          method + " cannot be called while the builder records its operations.");
+    }
+  }
+
+  /**
+   * Assert that this builder is not waiting in its pool.
+   *
+   * @throws IllegalStateException if the builder has been released
+   */
+  private void assertNotReleased() {
+    if (isReleased) {
+      throw new IllegalStateException(
+          "The builder has been returned to its pool and cannot be used anymore.");
+    }
+  }
+
+  /** Write the buffer to the sink and clear it. */
+  private void writeBuffer() {
+    try {
+      out.append(sb);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    sb.setLength(0);
+  }
+
   /** Start a tag using the specified builder. The tagName is not checked or escaped. */
   private void trustedStart(String tagName, ElementBuilderBase<?> builder) {
-    onStart(tagName, builder);
-    sb.append("<").append(tagName);
+    assertNotReleased();
+    onStartTrusted(tagName, builder);
+    doStartTagImpl(tagName);
+  }
+
+  /** A read-only view of the buffer of a builder. */
+  private static final class BufferView implements CharSequence {
+
+    private final StringBuilder sb;
+
+    BufferView(StringBuilder sb) {
+      this.sb = sb;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return sb.charAt(index);
+    }
+
+    @Override
+    public int length() {
+      return sb.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return sb.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+      return sb.toString();
+    }
   }
 }
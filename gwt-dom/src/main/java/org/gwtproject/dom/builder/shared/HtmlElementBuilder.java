@@ -22,4 +22,8 @@ public class HtmlElementBuilder extends HtmlElementBuilderBase<ElementBuilder>
   HtmlElementBuilder(HtmlBuilderImpl delegate) {
     super(delegate);
   }
+
+  HtmlElementBuilder(HtmlBuilderImpl delegate, boolean isEndTagForbidden) {
+    super(delegate, isEndTagForbidden);
+  }
 }
@@ -54,11 +54,34 @@ public class HtmlElementBuilderBase<R extends ElementBuilderBase<?>>
     this.delegate = delegate;
   }
 
+  /**
+   * End all open elements and return a read-only view of the HTML, without copying it. The view is
+   * only valid until the builder is reused.
+   *
+   * @return the HTML
+   */
+  public CharSequence asCharSequence() {
+    return delegate.asCharSequence();
+  }
+
   /** Return the HTML as a {@link SafeHtml} string. */
   public SafeHtml asSafeHtml() {
     return delegate.asSafeHtml();
   }
 
+  /**
+   * Set the HTML of another builder as the inner HTML of this element. The HTML is copied from the
+   * buffer of the other builder directly, without creating an intermediate string, and the other
+   * builder is finished as if {@link #asSafeHtml()} had been called on it.
+   *
+   * @param child the builder whose HTML is set
+   * @return this builder
+   */
+  public R html(HtmlElementBuilderBase<?> child) {
+    delegate.html(child.delegate);
+    return getReturnBuilder();
+  }
+
   @Override
   public R attribute(String name, int value) {
     delegate.attribute(name, value);
@@ -71,6 +94,46 @@ public class HtmlElementBuilderBase<R extends ElementBuilderBase<?>>
     return getReturnBuilder();
   }
 
+  /**
+   * End all open elements and write the remaining HTML to the sink of the {@link
+   * HtmlStreamingBuilderFactory} that created this builder.
+   *
+   * @throws IllegalStateException if the builder does not stream its output
+   */
+  public void flush() {
+    delegate.flush();
+  }
+
+  /**
+   * End all open elements and append the HTML to a destination, without creating an intermediate
+   * string. Errors thrown by the destination are rethrown as {@link
+   * java.io.UncheckedIOException}.
+   *
+   * @param dest the destination to append the HTML to
+   */
+  public void writeTo(Appendable dest) {
+    delegate.writeTo(dest);
+  }
+
+  /**
+   * Append the rendered markup of a template as a complete child of the current element.
+   *
+   * @param template the template to render
+   * @param values the hole values
+   */
+  void appendTemplate(ElementTemplate template, String[] values) {
+    delegate.appendTemplate(template, values);
+  }
+
+  /**
+   * Get the implementation that builds the element, which is shared by all builders of the tree.
+   *
+   * @return the delegate
+   */
+  HtmlBuilderImpl getDelegate() {
+    return delegate;
+  }
+
   @Override
   public R className(String className) {
     return trustedAttribute("class", className);
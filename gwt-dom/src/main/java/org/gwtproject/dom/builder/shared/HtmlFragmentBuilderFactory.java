@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import org.gwtproject.dom.client.DocumentFragment;
+import org.gwtproject.dom.client.Node;
+import org.gwtproject.safehtml.shared.SafeHtml;
+
+/**
+ * Factory for building a fragment of sibling elements as a single HTML string.
+ *
+ * <p>Every builder created by a fragment factory appends a new top level element to the same
+ * fragment, so any number of elements can be built without wrapping them in a throwaway parent or
+ * parsing each of them separately. The whole fragment is returned as one {@link SafeHtml} string,
+ * or parsed once into a {@link DocumentFragment} on the client, so inserting all elements costs a
+ * single parse and layout:
+ *
+ * <pre>
+ * HtmlFragmentBuilderFactory rows = new HtmlFragmentBuilderFactory();
+ * for (Item item : items) {
+ *   TableRowBuilder tr = rows.createTRBuilder();
+ *   tr.startTD().text(item.getName()).endTD();
+ *   tr.endTR();
+ * }
+ * tbody.appendChild(rows.finish());
+ * </pre>
+ *
+ * <p>A fragment factory builds one fragment. Each top level element must be ended before the next
+ * one is created, and {@code finish()} of the element builders is not supported.
+ */
+public class HtmlFragmentBuilderFactory extends HtmlBuilderFactory {
+
+  private final HtmlBuilderImpl impl = new HtmlBuilderImpl(null, 0, true);
+
+  /** Create a factory for a new, empty fragment. */
+  public HtmlFragmentBuilderFactory() {}
+
+  /**
+   * End all open elements and return the HTML of the fragment. More elements can be added
+   * afterwards.
+   *
+   * @return the HTML of all top level elements
+   */
+  public SafeHtml asSafeHtml() {
+    return impl.asSafeHtml();
+  }
+
+  /**
+   * End all open elements and append the HTML of the fragment to a destination, without creating
+   * an intermediate string. More elements can be added afterwards.
+   *
+   * @param dest the destination to append the HTML to
+   */
+  public void writeTo(Appendable dest) {
+    impl.writeTo(dest);
+  }
+
+  /**
+   * End all open elements and parse the fragment. Afterwards, no more elements can be added.
+   *
+   * @return a {@link DocumentFragment} that holds all top level elements
+   * @throws IllegalStateException if the fragment has already been finished
+   */
+  public DocumentFragment finish() {
+    return impl.finishFragment();
+  }
+
+  /**
+   * End all open elements and insert the fragment into a parent, which may be attached to the
+   * document. All elements are inserted with a single operation after the last child of the
+   * parent. Afterwards, no more elements can be added.
+   *
+   * @param parent the node to append the elements to
+   * @throws IllegalStateException if the fragment has already been finished
+   */
+  public void finishInto(Node parent) {
+    parent.appendChild(finish());
+  }
+
+  /**
+   * End all open elements and insert the fragment before a child of a parent, which may be
+   * attached to the document. All elements are inserted with a single operation. Afterwards, no
+   * more elements can be added.
+   *
+   * @param parent the node to insert the elements into
+   * @param refChild the child to insert the elements before, or null to append them
+   * @throws IllegalStateException if the fragment has already been finished
+   */
+  public void finishInto(Node parent, Node refChild) {
+    parent.insertBefore(finish(), refChild);
+  }
+
+  @Override
+  HtmlBuilderImpl impl() {
+    return impl;
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.gwtproject.safehtml.shared.SafeHtml;
+
+/**
+ * A size-bounded cache of rendered HTML fragments, for markup that is rendered over and over from
+ * the same inputs, such as status badges, icons and formatted numbers.
+ *
+ * <p>Fragments are looked up by a key supplied by the caller, or by an {@link ElementTemplate} and
+ * its hole values, and rendered only when they are not cached. When the cache is full, the least
+ * recently used fragment is evicted. A cached fragment is inserted into a builder with {@code
+ * html(SafeHtml)}, which appends it as is, without escaping it again:
+ *
+ * <pre>
+ * private static final HtmlFragmentCache BADGES = new HtmlFragmentCache(256);
+ *
+ * td.html(BADGES.get(status, () -&gt; renderBadge(status))).endTD();
+ * </pre>
+ *
+ * <p>Keys must implement {@code equals} and {@code hashCode}, and must not change while they are
+ * cached. Instances may be shared between threads. A fragment that is missing is rendered outside
+ * the lock, so two threads may render the same fragment at the same time, and the first one to
+ * finish is cached.
+ */
+public final class HtmlFragmentCache {
+
+  /** Renders a fragment that is not cached. */
+  public interface Renderer {
+
+    /**
+     * Render the fragment.
+     *
+     * @return the HTML of the fragment
+     */
+    SafeHtml render();
+  }
+
+  private final int maxEntries;
+  private final Map<Object, SafeHtml> entries;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * Create an empty cache.
+   *
+   * @param maxEntries the largest number of cached fragments
+   */
+  public HtmlFragmentCache(int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+    }
+    this.maxEntries = maxEntries;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /** Remove all fragments. The counters are not reset. */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Get a fragment, rendering and caching it if it is not cached.
+   *
+   * @param key the key of the fragment
+   * @param renderer the renderer that is called if the fragment is not cached
+   * @return the HTML of the fragment
+   */
+  public SafeHtml get(Object key, Renderer renderer) {
+    if (key == null) {
+      throw new NullPointerException("key cannot be null");
+    }
+    SafeHtml html = lookUp(key);
+    if (html != null) {
+      return html;
+    }
+    html = renderer.render();
+    if (html == null) {
+      throw new NullPointerException("The renderer returned null for " + key);
+    }
+    return store(key, html);
+  }
+
+  /**
+   * Get the fragment that a template renders for the specified values, rendering and caching it if
+   * it is not cached.
+   *
+   * @param template the template
+   * @param values the hole values, in the order of {@link ElementTemplate#getHoleName(int)}
+   * @return the HTML of the fragment
+   */
+  public SafeHtml get(ElementTemplate template, String... values) {
+    return get(new TemplateKey(template, values), () -> template.render(values));
+  }
+
+  /**
+   * Get the number of fragments that were evicted to make room for others.
+   *
+   * @return the number of evictions
+   */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Get the number of lookups that found a cached fragment.
+   *
+   * @return the number of hits
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Get a cached fragment without rendering it. Does not count as a hit or miss.
+   *
+   * @param key the key of the fragment
+   * @return the HTML of the fragment, or null if it is not cached
+   */
+  public synchronized SafeHtml getIfPresent(Object key) {
+    return entries.get(key);
+  }
+
+  /**
+   * Get the largest number of cached fragments.
+   *
+   * @return the maximum number of entries
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Get the number of lookups that had to render the fragment.
+   *
+   * @return the number of misses
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Cache a fragment, replacing the fragment cached for the key, if any.
+   *
+   * @param key the key of the fragment
+   * @param html the HTML of the fragment
+   */
+  public synchronized void put(Object key, SafeHtml html) {
+    if (key == null) {
+      throw new NullPointerException("key cannot be null");
+    }
+    if (html == null) {
+      throw new NullPointerException("html cannot be null");
+    }
+    entries.put(key, html);
+    evict();
+  }
+
+  /**
+   * Get the number of cached fragments.
+   *
+   * @return the number of entries
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /** Evict the least recently used fragments until the cache is within its size. */
+  private void evict() {
+    Iterator<SafeHtml> eldest = entries.values().iterator();
+    while (entries.size() > maxEntries) {
+      eldest.next();
+      eldest.remove();
+      evictionCount++;
+    }
+  }
+
+  /** Look up a fragment and count the hit or miss. */
+  private synchronized SafeHtml lookUp(Object key) {
+    SafeHtml html = entries.get(key);
+    if (html == null) {
+      missCount++;
+    } else {
+      hitCount++;
+    }
+    return html;
+  }
+
+  /** Cache a rendered fragment, unless another thread has cached it first. */
+  private synchronized SafeHtml store(Object key, SafeHtml html) {
+    SafeHtml cached = entries.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    entries.put(key, html);
+    evict();
+    return html;
+  }
+
+  /** The key of a fragment rendered by a template. */
+  private static final class TemplateKey {
+
+    private final ElementTemplate template;
+    private final String[] values;
+    private final int hashCode;
+
+    TemplateKey(ElementTemplate template, String[] values) {
+      if (template == null) {
+        throw new NullPointerException("template cannot be null");
+      }
+      this.template = template;
+      // Copy the values, the caller may reuse the array.
+      this.values = Arrays.copyOf(values, values.length);
+      this.hashCode = 31 * template.hashCode() + Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof TemplateKey)) {
+        return false;
+      }
+      TemplateKey other = (TemplateKey) obj;
+      return template == other.template && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
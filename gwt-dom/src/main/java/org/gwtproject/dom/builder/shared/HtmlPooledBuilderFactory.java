@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+/**
+ * Factory for creating element builders that reuse their implementation across renders.
+ *
+ * <p>Every builder created by {@link HtmlBuilderFactory} allocates a new implementation with its
+ * own element builders and output buffer. This factory keeps the implementations of finished
+ * builders in a small pool and hands them out again, so the element builders, the style builder,
+ * the element stack and the capacity of the output buffer are reused. A builder is returned to the
+ * pool when {@link HtmlElementBuilderBase#asSafeHtml()} (or {@code finish()}) is called on it.
+ * Builders that are never finished are simply not reused.
+ *
+ * <p>While a finished builder waits in the pool, every call on it, or on one of its element
+ * builders, throws an {@link IllegalStateException}. Once one of the {@code createXBuilder()}
+ * methods has handed it to a new render, the old handles are the handles of the new render, so
+ * they must not be kept after the builder is finished.
+ *
+ * <p>Instances of this factory are not thread-safe. Confine each instance to a single thread, for
+ * example by holding one per thread in a {@code ThreadLocal} on the server.
+ *
+ * <pre>
+ * HtmlPooledBuilderFactory factory = new HtmlPooledBuilderFactory();
+ * for (Row row : rows) {
+ *   HtmlTableRowBuilder tr = factory.createTRBuilder();
+ *   tr.startTD().text(row.getName()).endTD();
+ *   out.append(tr.asSafeHtml().asString());
+ * }
+ * </pre>
+ */
+public class HtmlPooledBuilderFactory extends HtmlBuilderFactory {
+
+  /** The default number of idle implementations kept by the pool. */
+  public static final int DEFAULT_MAX_IDLE = 4;
+
+  /** The default largest buffer capacity, in characters, kept for the next render. */
+  public static final int DEFAULT_MAX_RETAINED_CAPACITY = 64 * 1024;
+
+  /*
+   * An array is used rather than a list to avoid the dynamic casts of the
+   * emulated collections, as in the element stack of ElementBuilderImpl.
+   */
+  private final HtmlBuilderImpl[] idle;
+  private int idleCount;
+  private final int maxRetainedCapacity;
+
+  /**
+   * Create a pooled factory with {@link #DEFAULT_MAX_IDLE} and {@link
+   * #DEFAULT_MAX_RETAINED_CAPACITY}.
+   */
+  public HtmlPooledBuilderFactory() {
+    this(DEFAULT_MAX_IDLE, DEFAULT_MAX_RETAINED_CAPACITY);
+  }
+
+  /**
+   * Create a pooled factory.
+   *
+   * @param maxIdle the largest number of finished implementations that are kept for reuse
+   * @param maxRetainedCapacity the largest output buffer capacity, in characters, that is kept for
+   *     the next render; larger buffers are replaced by a buffer of this capacity when they are
+   *     returned to the pool
+   */
+  public HtmlPooledBuilderFactory(int maxIdle, int maxRetainedCapacity) {
+    if (maxIdle < 0) {
+      throw new IllegalArgumentException("maxIdle cannot be negative: " + maxIdle);
+    }
+    if (maxRetainedCapacity < 0) {
+      throw new IllegalArgumentException(
+          "maxRetainedCapacity cannot be negative: " + maxRetainedCapacity);
+    }
+    this.idle = new HtmlBuilderImpl[maxIdle];
+    this.maxRetainedCapacity = maxRetainedCapacity;
+  }
+
+  /**
+   * Get the number of finished implementations that are waiting to be reused.
+   *
+   * @return the number of idle implementations
+   */
+  public int getIdleCount() {
+    return idleCount;
+  }
+
+  @Override
+  HtmlBuilderImpl impl() {
+    if (idleCount == 0) {
+      HtmlBuilderImpl impl = new HtmlBuilderImpl();
+      impl.setPool(this);
+      return impl;
+    }
+    HtmlBuilderImpl impl = idle[--idleCount];
+    idle[idleCount] = null;
+    impl.setReleased(false);
+    return impl;
+  }
+
+  /**
+   * Return a finished implementation to the pool. It cannot be used until it is handed out again.
+   *
+   * @param impl the implementation whose output has been taken
+   */
+  void release(HtmlBuilderImpl impl) {
+    impl.reset();
+    impl.setReleased(true);
+    if (idleCount == idle.length) {
+      // The pool is full, let the implementation be garbage collected.
+      return;
+    }
+    impl.trimBuffer(maxRetainedCapacity);
+    idle[idleCount++] = impl;
+  }
+}
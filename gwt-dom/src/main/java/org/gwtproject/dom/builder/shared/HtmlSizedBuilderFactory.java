@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+/**
+ * Factory for creating element builders whose output buffer is sized up front.
+ *
+ * <p>The buffer of a builder created by {@link HtmlBuilderFactory} starts small and doubles as the
+ * HTML grows, so a large render copies its output many times over. This factory starts every
+ * buffer with a capacity hint instead. In adaptive mode, the factory also remembers how long the
+ * output of its builders was and sizes the next buffers to match, so keep one adaptive factory per
+ * call site or template, for example in a static field:
+ *
+ * <pre>
+ * private static final HtmlSizedBuilderFactory TABLES = new HtmlSizedBuilderFactory(1024, true);
+ *
+ * HtmlTableBuilder table = TABLES.createTableBuilder();
+ * ...
+ * SafeHtml html = table.asSafeHtml();
+ * </pre>
+ *
+ * <p>The capacity grows at once to fit a longer output, plus some slack, and shrinks slowly after
+ * shorter ones. Instances may be shared between threads. Concurrent renders may overwrite each
+ * other's update of the capacity, which only affects the size of later buffers.
+ */
+public class HtmlSizedBuilderFactory extends HtmlBuilderFactory {
+
+  private final boolean adaptive;
+  private int capacity;
+
+  /**
+   * Create a factory whose builders start with a fixed buffer capacity.
+   *
+   * @param capacity the initial capacity of the buffers, in characters
+   */
+  public HtmlSizedBuilderFactory(int capacity) {
+    this(capacity, false);
+  }
+
+  /**
+   * Create a factory whose builders start with a buffer capacity that is optionally adapted to the
+   * output of earlier builders.
+   *
+   * @param capacity the initial capacity of the buffers, in characters
+   * @param adaptive true to adapt the capacity to the length of the output
+   */
+  public HtmlSizedBuilderFactory(int capacity, boolean adaptive) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity cannot be negative: " + capacity);
+    }
+    this.capacity = capacity;
+    this.adaptive = adaptive;
+  }
+
+  /**
+   * Get the capacity that the buffer of the next builder starts with.
+   *
+   * @return the capacity, in characters
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Check if the capacity is adapted to the length of the output.
+   *
+   * @return true if the factory is adaptive
+   */
+  public boolean isAdaptive() {
+    return adaptive;
+  }
+
+  @Override
+  HtmlBuilderImpl impl() {
+    HtmlBuilderImpl impl = new HtmlBuilderImpl(capacity);
+    if (adaptive) {
+      impl.setSizer(this);
+    }
+    return impl;
+  }
+
+  /**
+   * Adapt the capacity to the length of the output of a builder.
+   *
+   * @param length the number of characters of the output
+   */
+  void onOutput(int length) {
+    // Leave some slack for renders that are a little longer than this one.
+    int needed = length + (length >> 4);
+    int current = capacity;
+    capacity = needed > current ? needed : current - ((current - needed) >> 3);
+  }
+}
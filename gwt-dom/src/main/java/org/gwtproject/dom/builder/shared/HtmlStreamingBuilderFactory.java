@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+/**
+ * Factory for creating element builders that stream the generated HTML to an {@link Appendable},
+ * such as a {@link java.io.Writer} or a servlet response writer.
+ *
+ * <p>The builders created by this factory behave like those of {@link HtmlBuilderFactory}, but
+ * instead of holding the entire document until {@link HtmlElementBuilderBase#asSafeHtml()} is
+ * called, they write completed markup to the sink whenever an element is ended and more than the
+ * flush threshold is buffered. Peak memory use therefore depends on the flush threshold and the
+ * nesting depth rather than on the size of the document, and the first bytes of a response can be
+ * sent before rendering finishes.
+ *
+ * <p>Call {@link HtmlElementBuilderBase#flush()} on the outermost builder to end all open elements
+ * and write the rest of the markup. {@code asSafeHtml()} and {@code finish()} are not supported by
+ * streaming builders. Errors thrown by the sink are rethrown as {@link
+ * java.io.UncheckedIOException}.
+ *
+ * <pre>
+ * HtmlStreamingBuilderFactory factory = new HtmlStreamingBuilderFactory(response.getWriter());
+ * HtmlTableBuilder table = factory.createTableBuilder();
+ * TableSectionBuilder tbody = table.startTBody();
+ * for (Row row : rows) {
+ *   TableRowBuilder tr = tbody.startTR();
+ *   tr.startTD().text(row.getName()).endTD();
+ *   tr.endTR();
+ * }
+ * table.flush();
+ * </pre>
+ *
+ * <p>On the JVM, a {@link Utf8ByteSink} encodes the markup to UTF-8 as it is written, so a page
+ * can be rendered to a channel or stream without creating strings.
+ *
+ * <p>The markup written to the sink is only trusted to the extent that the sink does not alter it.
+ * A factory instance writes every builder it creates to the same sink, so builders created from the
+ * same factory must be finished one after the other.
+ */
+public class HtmlStreamingBuilderFactory extends HtmlBuilderFactory {
+
+  /** The default number of buffered characters that triggers a write to the sink. */
+  public static final int DEFAULT_FLUSH_THRESHOLD = 8192;
+
+  private final Appendable out;
+  private final int flushThreshold;
+
+  /**
+   * Create a factory that streams to the specified sink with the {@link #DEFAULT_FLUSH_THRESHOLD}.
+   *
+   * @param out the sink that the HTML is written to
+   */
+  public HtmlStreamingBuilderFactory(Appendable out) {
+    this(out, DEFAULT_FLUSH_THRESHOLD);
+  }
+
+  /**
+   * Create a factory that streams to the specified sink.
+   *
+   * @param out the sink that the HTML is written to
+   * @param flushThreshold the number of buffered characters that triggers a write to the sink, 0
+   *     to write every element as soon as it is ended
+   */
+  public HtmlStreamingBuilderFactory(Appendable out, int flushThreshold) {
+    if (out == null) {
+      throw new NullPointerException("out cannot be null");
+    }
+    if (flushThreshold < 0) {
+      throw new IllegalArgumentException("flushThreshold cannot be negative: " + flushThreshold);
+    }
+    this.out = out;
+    this.flushThreshold = flushThreshold;
+  }
+
+  @Override
+  HtmlBuilderImpl impl() {
+    return new HtmlBuilderImpl(out, flushThreshold);
+  }
+}
@@ -15,13 +15,9 @@
  */
 package org.gwtproject.dom.builder.shared;
 
-import java.util.HashMap;
-import java.util.Locale;
-import java.util.Map;
 import org.gwtproject.dom.style.shared.*;
 import org.gwtproject.dom.style.shared.Float;
-import org.gwtproject.regexp.shared.MatchResult;
-import org.gwtproject.regexp.shared.RegExp;
+import org.gwtproject.safecss.shared.SafeStylesHostedModeUtils;
 import org.gwtproject.safecss.shared.SafeStylesUtils;
 import org.gwtproject.safehtml.shared.SafeUri;
 import org.gwtproject.safehtml.shared.annotations.IsSafeUri;
@@ -29,26 +25,30 @@ import org.gwtproject.safehtml.shared.annotations.IsSafeUri;
 /** Builds the style object. */
 class HtmlStylesBuilder implements StylesBuilder {
 
-  /**
-   * A map of camelCase style properties to their hyphenated equivalents.
-   *
-   * <p>The set of style property names is limited, and common ones are reused frequently, so
-   * caching saves us from converting every style property name from camelCase to hyphenated form.
-   */
-  private static Map<String, String> camelCaseMap;
+  /** The number of entries in the cache of converted custom names. Must be a power of two. */
+  private static final int CACHE_SIZE = 64;
 
   /**
-   * Regex to match a word in a camelCase phrase. A word starts with an uppercase or lowercase
-   * letter, followed by zero or more non-uppercase letters. For example, in the camelCase phrase
-   * backgroundUrl, the pattern matches "background" and "Url".
+   * A cache of custom camelCase style property names and their hyphenated equivalents.
    *
-   * <p>This pattern is not used to validate the style property name. {@link SafeStylesUtils}
-   * performs a more detailed check.
+   * <p>The cache is direct mapped: each name can only be stored at the slot of its hash code, and
+   * replaces the entry that was there. That bounds its size, and because each slot holds a single
+   * immutable {@link CacheEntry}, builders on different threads can share it without locking. A
+   * lost update only costs another conversion.
    */
-  private static RegExp camelCaseWord;
+  private static final CacheEntry[] cache = new CacheEntry[CACHE_SIZE];
 
-  /** Regex to match a word that starts with an uppercase letter. */
-  private static RegExp caseWord;
+  /** A camelCase name and its hyphenated form. */
+  private static final class CacheEntry {
+
+    private final String name;
+    private final String hyphenated;
+
+    CacheEntry(String name, String hyphenated) {
+      this.name = name;
+      this.hyphenated = hyphenated;
+    }
+  }
 
   /**
    * Convert a camelCase or hyphenated string to a hyphenated string.
@@ -58,11 +58,9 @@ class HtmlStylesBuilder implements StylesBuilder {
    */
   // Visible for testing
   static String toHyphenatedForm(String name) {
-    // Static initializers.
-    if (camelCaseWord == null) {
-      camelCaseMap = new HashMap<String, String>();
-      camelCaseWord = RegExp.compile("([A-Za-z])([^A-Z]*)", "g");
-      caseWord = RegExp.compile("[A-Z]([^A-Z]*)");
+    String hyphenated = toKnownHyphenatedForm(name);
+    if (hyphenated != null) {
+      return hyphenated;
     }
 
     // Early exit if already in hyphenated form.
@@ -70,30 +68,131 @@ class HtmlStylesBuilder implements StylesBuilder {
       return name;
     }
 
-    // Check for the name in the cache.
-    String hyphenated = camelCaseMap.get(name);
-
-    // Convert the name to hyphenated format if not in the cache.
-    if (hyphenated == null) {
-      hyphenated = "";
-      MatchResult matches;
-      while ((matches = camelCaseWord.exec(name)) != null) {
-        String word = matches.getGroup(0);
-        if (caseWord.exec(word) == null) {
-          // The first letter is already lowercase, probably the first word.
-          hyphenated += word;
-        } else {
-          // Hyphenate the first letter.
-          hyphenated += "-" + matches.getGroup(1).toLowerCase(Locale.ROOT);
-          if (matches.getGroupCount() > 1) {
-            hyphenated += matches.getGroup(2);
-          }
+    int slot = name.hashCode() & (CACHE_SIZE - 1);
+    CacheEntry entry = cache[slot];
+    if (entry != null && entry.name.equals(name)) {
+      return entry.hyphenated;
+    }
+    hyphenated = convertToHyphenatedForm(name);
+    cache[slot] = new CacheEntry(name, hyphenated);
+    return hyphenated;
+  }
+
+  /**
+   * Convert a camelCase string to a hyphenated string by inserting a hyphen before each uppercase
+   * letter and lowering it. For example, backgroundUrl is converted to background-url.
+   *
+   * <p>Characters before the first letter are dropped. This method does not validate the style
+   * property name. {@link SafeStylesUtils} performs a more detailed check.
+   */
+  private static String convertToHyphenatedForm(String name) {
+    int length = name.length();
+    int start = 0;
+    while (start < length && !isAsciiLetter(name.charAt(start))) {
+      start++;
+    }
+    StringBuilder sb = null;
+    for (int i = start; i < length; i++) {
+      char c = name.charAt(i);
+      if (c >= 'A' && c <= 'Z') {
+        if (sb == null) {
+          sb = new StringBuilder(length + 4).append(name, start, i);
         }
+        sb.append('-').append((char) (c + ('a' - 'A')));
+      } else if (sb != null) {
+        sb.append(c);
       }
-      camelCaseMap.put(name, hyphenated);
     }
+    if (sb != null) {
+      return sb.toString();
+    }
+    return start == 0 ? name : name.substring(start);
+  }
 
-    return hyphenated;
+  /** Check if the character is an ASCII letter, in either case. */
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  /**
+   * Get the hyphenated form of the camelCase names of the properties that {@link StylesBuilder}
+   * and {@link org.gwtproject.dom.style.shared.CssProperty} support, without converting or caching
+   * them.
+   *
+   * @param name the camelCase name
+   * @return the hyphenated name, or null if the name is not a known camelCase property
+   */
+  private static String toKnownHyphenatedForm(String name) {
+    switch (name) {
+      case "backgroundColor":
+        return "background-color";
+      case "backgroundImage":
+        return "background-image";
+      case "borderColor":
+        return "border-color";
+      case "borderStyle":
+        return "border-style";
+      case "borderWidth":
+        return "border-width";
+      case "fontSize":
+        return "font-size";
+      case "fontStyle":
+        return "font-style";
+      case "fontWeight":
+        return "font-weight";
+      case "lineHeight":
+        return "line-height";
+      case "listStyleType":
+        return "list-style-type";
+      case "marginBottom":
+        return "margin-bottom";
+      case "marginLeft":
+        return "margin-left";
+      case "marginRight":
+        return "margin-right";
+      case "marginTop":
+        return "margin-top";
+      case "outlineColor":
+        return "outline-color";
+      case "outlineStyle":
+        return "outline-style";
+      case "outlineWidth":
+        return "outline-width";
+      case "overflowX":
+        return "overflow-x";
+      case "overflowY":
+        return "overflow-y";
+      case "paddingBottom":
+        return "padding-bottom";
+      case "paddingLeft":
+        return "padding-left";
+      case "paddingRight":
+        return "padding-right";
+      case "paddingTop":
+        return "padding-top";
+      case "tableLayout":
+        return "table-layout";
+      case "textAlign":
+        return "text-align";
+      case "textDecoration":
+        return "text-decoration";
+      case "textIndent":
+        return "text-indent";
+      case "textJustify":
+        return "text-justify";
+      case "textOverflow":
+        return "text-overflow";
+      case "textTransform":
+        return "text-transform";
+      case "verticalAlign":
+        return "vertical-align";
+      case "whiteSpace":
+        return "white-space";
+      case "zIndex":
+        return "z-index";
+      default:
+        return null;
+    }
   }
 
   private final HtmlBuilderImpl delegate;
@@ -120,14 +219,12 @@ class HtmlStylesBuilder implements StylesBuilder {
 
   @Override
   public StylesBuilder borderWidth(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("border-width", value + unit.getType()));
+    return delegate.styleProperty("border-width", value, unit.getType());
   }
 
   @Override
   public StylesBuilder bottom(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("bottom", value + unit.getType()));
+    return delegate.styleProperty("bottom", value, unit.getType());
   }
 
   @Override
@@ -155,8 +252,7 @@ class HtmlStylesBuilder implements StylesBuilder {
 
   @Override
   public StylesBuilder fontSize(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("font-size", value + unit.getType()));
+    return delegate.styleProperty("font-size", value, unit.getType());
   }
 
   @Override
@@ -173,20 +269,17 @@ class HtmlStylesBuilder implements StylesBuilder {
 
   @Override
   public StylesBuilder height(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("height", value + unit.getType()));
+    return delegate.styleProperty("height", value, unit.getType());
   }
 
   @Override
   public StylesBuilder left(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("left", value + unit.getType()));
+    return delegate.styleProperty("left", value, unit.getType());
   }
 
   @Override
   public StylesBuilder lineHeight(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("line-height", value + unit.getType()));
+    return delegate.styleProperty("line-height", value, unit.getType());
   }
 
   @Override
@@ -197,37 +290,32 @@ class HtmlStylesBuilder implements StylesBuilder {
 
   @Override
   public StylesBuilder margin(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("margin", value + unit.getType()));
+    return delegate.styleProperty("margin", value, unit.getType());
   }
 
   @Override
   public StylesBuilder marginBottom(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("margin-bottom", value + unit.getType()));
+    return delegate.styleProperty("margin-bottom", value, unit.getType());
   }
 
   @Override
   public StylesBuilder marginLeft(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("margin-left", value + unit.getType()));
+    return delegate.styleProperty("margin-left", value, unit.getType());
   }
 
   @Override
   public StylesBuilder marginRight(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("margin-right", value + unit.getType()));
+    return delegate.styleProperty("margin-right", value, unit.getType());
   }
 
   @Override
   public StylesBuilder marginTop(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("margin-top", value + unit.getType()));
+    return delegate.styleProperty("margin-top", value, unit.getType());
   }
 
   @Override
   public StylesBuilder opacity(double value) {
-    return delegate.styleProperty(SafeStylesUtils.forOpacity(value));
+    return delegate.styleProperty("opacity", value, "");
   }
 
   @Override
@@ -238,8 +326,7 @@ class HtmlStylesBuilder implements StylesBuilder {
 
   @Override
   public StylesBuilder outlineWidth(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("outline-width", value + unit.getType()));
+    return delegate.styleProperty("outline-width", value, unit.getType());
   }
 
   @Override
@@ -262,32 +349,27 @@ class HtmlStylesBuilder implements StylesBuilder {
 
   @Override
   public StylesBuilder padding(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("padding", value + unit.getType()));
+    return delegate.styleProperty("padding", value, unit.getType());
   }
 
   @Override
   public StylesBuilder paddingBottom(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("padding-bottom", value + unit.getType()));
+    return delegate.styleProperty("padding-bottom", value, unit.getType());
   }
 
   @Override
   public StylesBuilder paddingLeft(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("padding-left", value + unit.getType()));
+    return delegate.styleProperty("padding-left", value, unit.getType());
   }
 
   @Override
   public StylesBuilder paddingRight(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("padding-right", value + unit.getType()));
+    return delegate.styleProperty("padding-right", value, unit.getType());
   }
 
   @Override
   public StylesBuilder paddingTop(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("padding-top", value + unit.getType()));
+    return delegate.styleProperty("padding-top", value, unit.getType());
   }
 
   @Override
@@ -298,8 +380,7 @@ class HtmlStylesBuilder implements StylesBuilder {
 
   @Override
   public StylesBuilder right(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("right", value + unit.getType()));
+    return delegate.styleProperty("right", value, unit.getType());
   }
 
   @Override
@@ -322,8 +403,7 @@ class HtmlStylesBuilder implements StylesBuilder {
 
   @Override
   public StylesBuilder textIndent(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("text-indent", value + unit.getType()));
+    return delegate.styleProperty("text-indent", value, unit.getType());
   }
 
   @Override
@@ -346,8 +426,7 @@ class HtmlStylesBuilder implements StylesBuilder {
 
   @Override
   public StylesBuilder top(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("top", value + unit.getType()));
+    return delegate.styleProperty("top", value, unit.getType());
   }
 
   @Override
@@ -378,8 +457,8 @@ class HtmlStylesBuilder implements StylesBuilder {
   @Override
   public StylesBuilder trustedProperty(String name, double value, Unit unit) {
     name = toHyphenatedForm(name);
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue(name, value + unit.getType()));
+    SafeStylesHostedModeUtils.maybeCheckValidStyleName(name);
+    return delegate.styleProperty(name, value, unit.getType());
   }
 
   @Override
@@ -390,8 +469,7 @@ class HtmlStylesBuilder implements StylesBuilder {
 
   @Override
   public StylesBuilder verticalAlign(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("vertical-align", value + unit.getType()));
+    return delegate.styleProperty("vertical-align", value, unit.getType());
   }
 
   @Override
@@ -408,8 +486,7 @@ class HtmlStylesBuilder implements StylesBuilder {
 
   @Override
   public StylesBuilder width(double value, Unit unit) {
-    return delegate.styleProperty(
-        SafeStylesUtils.fromTrustedNameAndValue("width", value + unit.getType()));
+    return delegate.styleProperty("width", value, unit.getType());
   }
 
   @Override
@@ -54,4 +54,22 @@ public class HtmlTableSectionBuilder extends HtmlElementBuilderBase<TableSection
   public TableSectionBuilder vAlign(String vAlign) {
     return trustedAttribute("vAlign", vAlign);
   }
+
+  /**
+   * Append a fragment of rows that was built separately as the next children of this section.
+   *
+   * @param rows the fragment whose top level elements are rows
+   */
+  void appendRows(HtmlBuilderImpl rows) {
+    getDelegate().appendRows(rows);
+  }
+
+  /**
+   * Assert that this section is the current element, so that rows can be appended to it.
+   *
+   * @throws IllegalStateException if the current element is not a table section
+   */
+  void assertOpen() {
+    getDelegate().assertTableSectionOpen();
+  }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import org.gwtproject.dom.client.Element;
+
+/**
+ * Factory for creating element builders that bind to an element rendered on the server instead of
+ * creating a new one.
+ *
+ * <p>When the markup of {@link HtmlBuilderFactory} is already in the page, running the same
+ * builder code on the client with this factory walks the existing element: every started element
+ * is matched to the next child element of its parent and its tag name is verified, but nothing is
+ * created or changed. {@code finish()} returns the existing element, and {@link
+ * #getCurrentElement()} returns the existing element of the builder's current element while
+ * building, for example to attach event handlers:
+ *
+ * <pre>
+ * HydratingBuilderFactory factory = new HydratingBuilderFactory(serverRenderedList);
+ * UListBuilder ul = factory.createUListBuilder();
+ * for (Item item : items) {
+ *   ul.startLI().text(item.getName());
+ *   handlers.put(factory.getCurrentElement(), item);
+ *   ul.endLI();
+ * }
+ * ul.finish();
+ * </pre>
+ *
+ * <p>Only elements are matched, so whitespace and other text nodes between them do not matter, and
+ * the children of an element whose content is set with {@code html()} are not verified. If the
+ * builder calls do not match the existing tree, debug builds fail with an {@link AssertionError}
+ * that describes the first difference. Otherwise, {@code finish()} replaces the existing element
+ * with new elements parsed from the HTML of the builder calls, and later builders bind to those.
+ * That HTML is only generated when it is needed.
+ */
+public class HydratingBuilderFactory extends HtmlBuilderFactory {
+
+  private Element target;
+
+  /** The implementation of the last created builder. */
+  private HydratingBuilderImpl current;
+
+  /**
+   * Create a factory that binds to an existing element.
+   *
+   * @param target the element rendered on the server
+   */
+  public HydratingBuilderFactory(Element target) {
+    if (target == null) {
+      throw new NullPointerException("target cannot be null");
+    }
+    this.target = target;
+  }
+
+  /**
+   * Get the existing element that matches the current element of the last created builder.
+   *
+   * @return the element, or null if there is no open element or the builder calls do not match
+   *     the existing tree
+   */
+  public Element getCurrentElement() {
+    return current == null ? null : current.getCurrentElement();
+  }
+
+  /**
+   * Get a description of the first difference between the calls of the last created builder and
+   * the existing tree.
+   *
+   * @return the description, or null if the tree matches so far
+   */
+  public String getMismatch() {
+    return current == null ? null : current.getMismatch();
+  }
+
+  /**
+   * Get the element that the next builder binds to.
+   *
+   * @return the existing element
+   */
+  public Element getTarget() {
+    return target;
+  }
+
+  @Override
+  HtmlBuilderImpl impl() {
+    current = new HydratingBuilderImpl(this);
+    return current;
+  }
+
+  /**
+   * Replace the element that later builders bind to.
+   *
+   * @param target the new element
+   */
+  void setTarget(Element target) {
+    this.target = target;
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import org.gwtproject.dom.client.Element;
+import org.gwtproject.dom.client.Node;
+import org.gwtproject.safehtml.shared.SafeHtml;
+
+/**
+ * Implementation of methods in {@link ElementBuilderBase} that walks the existing element of a
+ * {@link HydratingBuilderFactory} along with the builder calls, instead of creating elements.
+ *
+ * <p>Every started element is matched to the next child element of the current existing element,
+ * and its tag name is verified. No HTML is generated while building, but the operations are
+ * recorded, so that a tree that does not match can be replaced by elements created from the HTML of
+ * the recording when the builder is finished.
+ */
+class HydratingBuilderImpl extends RecordingBuilderImpl {
+
+  private final HydratingBuilderFactory factory;
+
+  /** The existing elements of the open elements, from the root to the current element. */
+  private Element[] openElements = new Element[16];
+
+  /** The last matched child of each open element, or null if no child has been matched yet. */
+  private Element[] lastChildren = new Element[16];
+
+  /** True for each open element whose content has been set with {@code html()}. */
+  private boolean[] htmlSet = new boolean[16];
+
+  private int openElementCount;
+
+  /** A description of the first mismatch, or null if the tree matches so far. */
+  private String mismatch;
+
+  /** True if the operations are written to the HTML buffer, once the HTML has been requested. */
+  private boolean isGeneratingHtml;
+
+  /**
+   * Construct a new {@link HydratingBuilderImpl}.
+   *
+   * @param factory the factory that holds the existing element
+   */
+  HydratingBuilderImpl(HydratingBuilderFactory factory) {
+    this.factory = factory;
+  }
+
+  /**
+   * Get the existing element that matches the current element of the builder.
+   *
+   * @return the element, or null if there is no open element or the tree does not match
+   */
+  Element getCurrentElement() {
+    return mismatch != null || openElementCount == 0 ? null : openElements[openElementCount - 1];
+  }
+
+  /**
+   * Get a description of the first difference between the builder calls and the existing tree.
+   *
+   * @return the description, or null if the tree matches
+   */
+  String getMismatch() {
+    return mismatch;
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    for (int i = 0; i < openElementCount; i++) {
+      openElements[i] = null;
+      lastChildren[i] = null;
+    }
+    openElementCount = 0;
+    mismatch = null;
+    isGeneratingHtml = false;
+  }
+
+  @Override
+  protected void doEndStartTagImpl() {
+    super.doEndStartTagImpl();
+    popElement();
+  }
+
+  @Override
+  protected void doEndTagImpl(String tagName) {
+    super.doEndTagImpl(tagName);
+    popElement();
+  }
+
+  @Override
+  protected Element doFinishImpl() {
+    if (mismatch == null) {
+      return factory.getTarget();
+    }
+    assert false : "The builder does not match the existing element: " + mismatch;
+
+    // Fall back to the HTML of the recorded operations.
+    Element target = factory.getTarget();
+    Element element = replayRecording().doFinishImpl();
+    Node parent = target.getParentNode();
+    if (parent != null) {
+      parent.replaceChild(element, target);
+    }
+    factory.setTarget(element);
+    return element;
+  }
+
+  @Override
+  protected void doHtmlImpl(SafeHtml html) {
+    super.doHtmlImpl(html);
+    onHtmlSet();
+  }
+
+  @Override
+  void doHtmlImpl(CharSequence html) {
+    super.doHtmlImpl(html);
+    onHtmlSet();
+  }
+
+  @Override
+  protected int getOutputLength() {
+    return isGeneratingHtml ? super.getOutputLength() : -1;
+  }
+
+  @Override
+  boolean isGeneratingHtml() {
+    return isGeneratingHtml;
+  }
+
+  @Override
+  protected void onStartTrusted(String tagName, ElementBuilderBase<?> builder) {
+    super.onStartTrusted(tagName, builder);
+    if (mismatch != null) {
+      return;
+    }
+
+    Element element;
+    if (openElementCount == 0) {
+      element = factory.getTarget();
+    } else {
+      int parent = openElementCount - 1;
+      Element previous = lastChildren[parent];
+      element =
+          previous == null
+              ? openElements[parent].getFirstChildElement()
+              : previous.getNextSiblingElement();
+      lastChildren[parent] = element;
+    }
+    if (element == null) {
+      mismatch = "<" + tagName + "> has no existing element at depth " + openElementCount;
+      return;
+    }
+    if (!element.getTagName().equalsIgnoreCase(tagName)) {
+      mismatch =
+          "<" + tagName + "> found <" + element.getTagName().toLowerCase() + "> at depth "
+              + openElementCount;
+      return;
+    }
+
+    if (openElementCount == openElements.length) {
+      grow();
+    }
+    openElements[openElementCount] = element;
+    lastChildren[openElementCount] = null;
+    htmlSet[openElementCount] = false;
+    openElementCount++;
+  }
+
+  @Override
+  void prepareOutput() {
+    if (!isGeneratingHtml) {
+      // The HTML is requested explicitly, so generate it from now on.
+      copyOutputFrom(replayRecording());
+      isGeneratingHtml = true;
+    }
+  }
+
+  /** Double the capacity of the stack. */
+  private void grow() {
+    int capacity = openElements.length * 2;
+    Element[] newOpenElements = new Element[capacity];
+    Element[] newLastChildren = new Element[capacity];
+    boolean[] newHtmlSet = new boolean[capacity];
+    for (int i = 0; i < openElementCount; i++) {
+      newOpenElements[i] = openElements[i];
+      newLastChildren[i] = lastChildren[i];
+      newHtmlSet[i] = htmlSet[i];
+    }
+    openElements = newOpenElements;
+    lastChildren = newLastChildren;
+    htmlSet = newHtmlSet;
+  }
+
+  /** Mark the content of the current element as set with {@code html()}. */
+  private void onHtmlSet() {
+    if (openElementCount > 0) {
+      // The children come from the HTML and are not matched.
+      htmlSet[openElementCount - 1] = true;
+    }
+  }
+
+  /** End the current element, verifying that it has no unmatched children. */
+  private void popElement() {
+    if (mismatch != null) {
+      return;
+    }
+    int current = openElementCount - 1;
+    Element extra = null;
+    if (!htmlSet[current]) {
+      Element last = lastChildren[current];
+      extra =
+          last == null
+              ? openElements[current].getFirstChildElement()
+              : last.getNextSiblingElement();
+    }
+    if (extra != null) {
+      mismatch =
+          "unexpected <" + extra.getTagName().toLowerCase() + "> at depth " + openElementCount;
+      return;
+    }
+    openElements[current] = null;
+    lastChildren[current] = null;
+    openElementCount--;
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+/**
+ * Factory for creating element builders that record their operations into an {@link
+ * ElementOpLog}.
+ *
+ * <p>Render a tree on the server with the usual builder calls, send the binary form of the log to
+ * the client, and play it back there as DOM elements, or as HTML anywhere. The log is much smaller
+ * than the HTML of the same tree, and the client does not have to run the rendering code:
+ *
+ * <pre>
+ * OpLogBuilderFactory factory = new OpLogBuilderFactory();
+ * HtmlTableBuilder table = factory.createTableBuilder();
+ * ...
+ * byte[] payload = factory.finishOpLog().toBytes();
+ * </pre>
+ *
+ * <p>The builders still generate HTML, so {@link HtmlElementBuilderBase#asSafeHtml()} returns the
+ * same markup that the log plays back to. Instances of this factory are not thread-safe, and only
+ * the last created builder can be finished with {@link #finishOpLog()}.
+ */
+public class OpLogBuilderFactory extends HtmlBuilderFactory {
+
+  /** The implementation of the last created builder, until its log is taken. */
+  private RecordingBuilderImpl current;
+
+  /** Create a factory that records the operations of its builders. */
+  public OpLogBuilderFactory() {}
+
+  /**
+   * End all open elements of the last created builder and return its operations.
+   *
+   * @return the log of the builder
+   * @throws IllegalStateException if no builder has been created since the last call
+   */
+  public ElementOpLog finishOpLog() {
+    if (current == null) {
+      throw new IllegalStateException("No builder has been created since the last op log.");
+    }
+    RecordingBuilderImpl impl = current;
+    current = null;
+    impl.endAllTags();
+    return ElementOpLog.of(impl.getRecording());
+  }
+
+  @Override
+  HtmlBuilderImpl impl() {
+    // Recording builders finish like plain HTML builders.
+    current = new RecordingBuilderImpl() {};
+    return current;
+  }
+}
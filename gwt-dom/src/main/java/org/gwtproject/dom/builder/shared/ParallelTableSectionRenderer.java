@@ -0,0 +1,222 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.gwtproject.core.shared.GwtIncompatible;
+import org.gwtproject.dom.client.TableRowElement;
+
+/**
+ * Renders the rows of a large table section in parallel on a {@link ForkJoinPool}.
+ *
+ * <p>The rows are split into ranges of {@link #getRowsPerTask()} rows. Each range is rendered by a
+ * task into its own fragment builder, so the tasks share no state, and the fragments are appended
+ * to the section in row order once all of them are done. The output is the same as when the rows
+ * are rendered one after the other into the section:
+ *
+ * <pre>
+ * TableSectionBuilder tbody = table.startTBody();
+ * new ParallelTableSectionRenderer().render(tbody, items.size(), (tr, row) -&gt; {
+ *   Item item = items.get(row);
+ *   tr.startTD().text(item.getName()).endTD();
+ *   tr.startTD().text(item.getPrice()).endTD();
+ * });
+ * tbody.endTBody();
+ * </pre>
+ *
+ * <p>Only sections built as HTML, by an {@link HtmlBuilderFactory} or one of its subclasses, can be
+ * rendered in parallel. The rows of a section whose builder records its operations, like those of
+ * {@link OpLogBuilderFactory}, are rendered one after the other on the calling thread. The {@link
+ * RowRenderer} is called from several threads at once, so it must not modify shared state. The
+ * rendered ranges are held in memory until they are appended, so a streamed section only starts to
+ * write its rows after all of them have been rendered.
+ */
+@GwtIncompatible
+public final class ParallelTableSectionRenderer {
+
+  /** Renders the cells of one row. */
+  public interface RowRenderer {
+
+    /**
+     * Render the content of a row. The row is ended after the method returns, so the renderer must
+     * end all elements that it starts, but not the row itself.
+     *
+     * @param tr the builder of the started row
+     * @param row the index of the row
+     */
+    void render(TableRowBuilder tr, int row);
+  }
+
+  /** The default number of rows that a task renders. */
+  public static final int DEFAULT_ROWS_PER_TASK = 256;
+
+  private final ForkJoinPool pool;
+  private final int rowsPerTask;
+
+  /**
+   * Create a renderer that uses the common pool and the {@link #DEFAULT_ROWS_PER_TASK}.
+   *
+   * @see ForkJoinPool#commonPool()
+   */
+  public ParallelTableSectionRenderer() {
+    this(ForkJoinPool.commonPool(), DEFAULT_ROWS_PER_TASK);
+  }
+
+  /**
+   * Create a renderer.
+   *
+   * @param pool the pool the rows are rendered on
+   * @param rowsPerTask the number of rows that a task renders
+   * @throws IllegalArgumentException if rowsPerTask is less than 1
+   */
+  public ParallelTableSectionRenderer(ForkJoinPool pool, int rowsPerTask) {
+    if (pool == null) {
+      throw new NullPointerException("pool cannot be null");
+    }
+    if (rowsPerTask < 1) {
+      throw new IllegalArgumentException("rowsPerTask must be at least 1: " + rowsPerTask);
+    }
+    this.pool = pool;
+    this.rowsPerTask = rowsPerTask;
+  }
+
+  /** Get the pool the rows are rendered on. */
+  public ForkJoinPool getPool() {
+    return pool;
+  }
+
+  /** Get the number of rows that a task renders. */
+  public int getRowsPerTask() {
+    return rowsPerTask;
+  }
+
+  /**
+   * Render rows as the next children of a table section. Ranges of rows are rendered in parallel,
+   * and appended in row order. A section with no more rows than {@link #getRowsPerTask()} is
+   * rendered on the calling thread.
+   *
+   * @param section the open table section, built by an {@link HtmlBuilderFactory}
+   * @param rowCount the number of rows
+   * @param renderer the renderer of the rows
+   * @throws IllegalStateException if the section is not the current element, or a row is not
+   *     rendered as a single complete row
+   * @throws IllegalArgumentException if the section is not built as HTML, or rowCount is negative
+   */
+  public void render(TableSectionBuilder section, int rowCount, RowRenderer renderer) {
+    if (section == null) {
+      throw new NullPointerException("section cannot be null");
+    }
+    if (renderer == null) {
+      throw new NullPointerException("renderer cannot be null");
+    }
+    if (rowCount < 0) {
+      throw new IllegalArgumentException("rowCount cannot be negative: " + rowCount);
+    }
+    if (!(section instanceof HtmlTableSectionBuilder)) {
+      throw new IllegalArgumentException("Only HTML table sections can be rendered in parallel.");
+    }
+    HtmlTableSectionBuilder htmlSection = (HtmlTableSectionBuilder) section;
+    htmlSection.assertOpen();
+    if (rowCount == 0) {
+      return;
+    }
+    HtmlBuilderImpl impl = htmlSection.getDelegate();
+    if (!impl.canAppendHtml()) {
+      // The section records its operations, so the rows must go through its own builder.
+      renderRows(impl, renderer, 0, rowCount);
+      return;
+    }
+
+    int taskCount = (rowCount - 1) / rowsPerTask + 1;
+    HtmlBuilderImpl[] ranges = new HtmlBuilderImpl[taskCount];
+    RenderTask task = new RenderTask(renderer, rowCount, rowsPerTask, ranges, 0, taskCount);
+    if (taskCount == 1) {
+      task.compute();
+    } else {
+      pool.invoke(task);
+    }
+    for (HtmlBuilderImpl range : ranges) {
+      htmlSection.appendRows(range);
+    }
+  }
+
+  /**
+   * Render rows as the next children of the current element of a builder.
+   *
+   * @param impl the builder whose current element is the table section or the fragment root
+   * @param renderer the renderer of the rows
+   * @param from the index of the first row
+   * @param to the index after the last row
+   * @throws IllegalStateException if a row is not rendered as a single complete row
+   */
+  private static void renderRows(HtmlBuilderImpl impl, RowRenderer renderer, int from, int to) {
+    int depth = impl.getDepth() + 1;
+    for (int row = from; row < to; row++) {
+      HtmlTableRowBuilder tr = impl.startTR();
+      renderer.render(tr, row);
+      if (impl.getDepth() != depth || !TableRowElement.TAG.equals(impl.getOpenTagName())) {
+        throw new IllegalStateException(
+            "Row " + row + " must be rendered with only its row open when the renderer returns.");
+      }
+      tr.endTR();
+    }
+  }
+
+  /** Renders the ranges of rows from {@code from} to {@code to}, splitting them in halves. */
+  private static final class RenderTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RowRenderer renderer;
+    private final int rowCount;
+    private final int rowsPerTask;
+    private final HtmlBuilderImpl[] ranges;
+    private final int from;
+    private final int to;
+
+    RenderTask(
+        RowRenderer renderer,
+        int rowCount,
+        int rowsPerTask,
+        HtmlBuilderImpl[] ranges,
+        int from,
+        int to) {
+      this.renderer = renderer;
+      this.rowCount = rowCount;
+      this.rowsPerTask = rowsPerTask;
+      this.ranges = ranges;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        int middle = (from + to) >>> 1;
+        invokeAll(
+            new RenderTask(renderer, rowCount, rowsPerTask, ranges, from, middle),
+            new RenderTask(renderer, rowCount, rowsPerTask, ranges, middle, to));
+        return;
+      }
+
+      HtmlBuilderImpl rows = new HtmlBuilderImpl(null, 0, true);
+      renderRows(rows, renderer, from * rowsPerTask, Math.min(rowCount, (from + 1) * rowsPerTask));
+      // The elements of the array are published to the caller by the completion of the task.
+      ranges[from] = rows;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import org.gwtproject.dom.client.Element;
+
+/**
+ * Factory for creating element builders that update an existing element instead of creating a new
+ * one.
+ *
+ * <p>Rebuilding a large subtree on every change destroys focus, selection and scroll position, and
+ * creating the elements again is slow. The builders created by this factory record the builder
+ * calls, and {@code finish()} walks the existing element along with the recording, changing only
+ * the attributes, styles, text and children that differ. Child elements are matched by the value of
+ * the key attribute, {@value #DEFAULT_KEY_ATTRIBUTE} unless specified otherwise, and unkeyed
+ * children are matched by position among the children with the same tag name. Give the items of a
+ * list a key so that inserting, removing or reordering items moves the existing elements.
+ *
+ * <pre>
+ * ReconcilingBuilderFactory factory = new ReconcilingBuilderFactory(listElement);
+ * UListBuilder ul = factory.createUListBuilder();
+ * for (Item item : items) {
+ *   ul.startLI().attribute("data-key", item.getId()).text(item.getName()).endLI();
+ * }
+ * ul.finish();
+ * </pre>
+ *
+ * <p>{@code finish()} returns the updated element. If the tag name of the built root differs from
+ * that of the existing element, a new element replaces it in its parent and is returned, and later
+ * builders update the new element. The builders still generate HTML, so {@link
+ * HtmlElementBuilderBase#asSafeHtml()} can be used instead of {@code finish()} to render the same
+ * tree on the server.
+ */
+public class ReconcilingBuilderFactory extends HtmlBuilderFactory {
+
+  /** The default attribute that identifies child elements. */
+  public static final String DEFAULT_KEY_ATTRIBUTE = "data-key";
+
+  private final ElementReconciler reconciler;
+  private Element target;
+
+  /**
+   * Create a factory that updates an element, matching children by the {@link
+   * #DEFAULT_KEY_ATTRIBUTE}.
+   *
+   * @param target the existing element
+   */
+  public ReconcilingBuilderFactory(Element target) {
+    this(target, DEFAULT_KEY_ATTRIBUTE);
+  }
+
+  /**
+   * Create a factory that updates an element.
+   *
+   * @param target the existing element
+   * @param keyAttribute the name of the attribute that identifies child elements
+   */
+  public ReconcilingBuilderFactory(Element target, String keyAttribute) {
+    if (target == null) {
+      throw new NullPointerException("target cannot be null");
+    }
+    if (keyAttribute == null || keyAttribute.isEmpty()) {
+      throw new IllegalArgumentException("keyAttribute cannot be empty");
+    }
+    this.target = target;
+    this.reconciler = new ElementReconciler(keyAttribute);
+  }
+
+  /**
+   * Get the number of DOM mutations that the last finished builder performed.
+   *
+   * @return the number of attributes, styles, texts and children that were changed
+   */
+  public int getMutationCount() {
+    return reconciler.getMutationCount();
+  }
+
+  /**
+   * Get the element that the next builder updates.
+   *
+   * @return the existing element
+   */
+  public Element getTarget() {
+    return target;
+  }
+
+  @Override
+  HtmlBuilderImpl impl() {
+    return new ReconcilingBuilderImpl(this);
+  }
+
+  /**
+   * Update the target to match a recording.
+   *
+   * @param recording the recording of the finished builder
+   * @return the updated element
+   */
+  Element reconcile(ElementRecording recording) {
+    target = reconciler.reconcile(target, recording);
+    return target;
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import org.gwtproject.dom.client.Element;
+
+/**
+ * Implementation of methods in {@link ElementBuilderBase} that records the builder operations and
+ * applies them to the existing element of a {@link ReconcilingBuilderFactory} when the builder is
+ * finished.
+ */
+class ReconcilingBuilderImpl extends RecordingBuilderImpl {
+
+  private final ReconcilingBuilderFactory factory;
+
+  /**
+   * Construct a new {@link ReconcilingBuilderImpl}.
+   *
+   * @param factory the factory that holds the element to update
+   */
+  ReconcilingBuilderImpl(ReconcilingBuilderFactory factory) {
+    this.factory = factory;
+  }
+
+  @Override
+  protected Element doFinishImpl() {
+    return factory.reconcile(getRecording());
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import org.gwtproject.safecss.shared.SafeStyles;
+import org.gwtproject.safehtml.shared.SafeHtml;
+
+/**
+ * Implementation of methods in {@link ElementBuilderBase} that builds HTML and also records the
+ * builder operations in an {@link ElementRecording}, so that subclasses can create or update DOM
+ * elements from the recording when the builder is finished.
+ *
+ * <p>Every typed HTML builder writes its attributes through {@link #attribute(String, String)} or
+ * {@link #trustedAttribute(String, String)}, so the recording captures everything that ends up in
+ * the generated HTML. Subclasses that may not need the HTML can skip generating it by overriding
+ * {@link #isGeneratingHtml()}, in which case the builder state is still checked and updated.
+ */
+abstract class RecordingBuilderImpl extends HtmlBuilderImpl {
+
+  /** The recorded operations, or null if recording has been stopped. */
+  private ElementRecording recording = new ElementRecording();
+
+  @Override
+  public void attribute(String name, int value) {
+    if (isGeneratingHtml()) {
+      super.attribute(name, value);
+    } else {
+      assertCanAddAttributeImpl();
+    }
+    if (recording != null) {
+      recording.add(ElementRecording.ATTRIBUTE, name, String.valueOf(value));
+    }
+  }
+
+  @Override
+  public void attribute(String name, String value) {
+    if (isGeneratingHtml()) {
+      super.attribute(name, value);
+    } else {
+      assertCanAddAttributeImpl();
+    }
+    record(ElementRecording.ATTRIBUTE, name, value);
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    if (recording == null) {
+      recording = new ElementRecording();
+    } else {
+      recording.clear();
+    }
+  }
+
+  @Override
+  public StylesBuilder styleProperty(SafeStyles style) {
+    StylesBuilder stylesBuilder;
+    if (isGeneratingHtml()) {
+      stylesBuilder = super.styleProperty(style);
+    } else {
+      assertCanAddStylePropertyImpl();
+      stylesBuilder = style();
+    }
+    if (recording != null) {
+      // The styles builder adds one "name:value;" declaration at a time.
+      String css = style.asString();
+      int colon = css.indexOf(':');
+      int end = css.endsWith(";") ? css.length() - 1 : css.length();
+      recording.add(ElementRecording.STYLE, css.substring(0, colon), css.substring(colon + 1, end));
+    }
+    return stylesBuilder;
+  }
+
+  @Override
+  public StylesBuilder styleProperty(String name, double value, String suffix) {
+    StylesBuilder stylesBuilder;
+    if (isGeneratingHtml()) {
+      stylesBuilder = super.styleProperty(name, value, suffix);
+    } else {
+      assertCanAddStylePropertyImpl();
+      stylesBuilder = style();
+    }
+    if (recording != null) {
+      recording.add(ElementRecording.STYLE, name, value + suffix);
+    }
+    return stylesBuilder;
+  }
+
+  @Override
+  public void trustedAttribute(String name, int value) {
+    if (isGeneratingHtml()) {
+      super.trustedAttribute(name, value);
+    } else {
+      assertCanAddAttributeImpl();
+    }
+    if (recording != null) {
+      recording.add(ElementRecording.ATTRIBUTE, name, String.valueOf(value));
+    }
+  }
+
+  @Override
+  public void trustedAttribute(String name, String value) {
+    if (isGeneratingHtml()) {
+      super.trustedAttribute(name, value);
+    } else {
+      assertCanAddAttributeImpl();
+    }
+    record(ElementRecording.ATTRIBUTE, name, value);
+  }
+
+  @Override
+  protected void doCloseStartTagImpl() {
+    if (isGeneratingHtml()) {
+      super.doCloseStartTagImpl();
+    }
+  }
+
+  @Override
+  protected void doCloseStyleAttributeImpl() {
+    if (isGeneratingHtml()) {
+      super.doCloseStyleAttributeImpl();
+    }
+  }
+
+  @Override
+  protected void doEndStartTagImpl() {
+    if (isGeneratingHtml()) {
+      super.doEndStartTagImpl();
+    }
+    record(ElementRecording.END, null, null);
+  }
+
+  @Override
+  protected void doEndTagImpl(String tagName) {
+    if (isGeneratingHtml()) {
+      super.doEndTagImpl(tagName);
+    }
+    record(ElementRecording.END, null, null);
+  }
+
+  @Override
+  protected void doHtmlImpl(SafeHtml html) {
+    if (isGeneratingHtml()) {
+      super.doHtmlImpl(html);
+    }
+    record(ElementRecording.HTML, null, html.asString());
+  }
+
+  @Override
+  void doHtmlImpl(CharSequence html) {
+    if (isGeneratingHtml()) {
+      super.doHtmlImpl(html);
+    }
+    record(ElementRecording.HTML, null, html.toString());
+  }
+
+  @Override
+  protected void doOpenStyleImpl() {
+    if (isGeneratingHtml()) {
+      super.doOpenStyleImpl();
+    }
+  }
+
+  @Override
+  void doStartTagImpl(String tagName) {
+    if (isGeneratingHtml()) {
+      super.doStartTagImpl(tagName);
+    }
+  }
+
+  @Override
+  protected void doTextImpl(String text) {
+    if (isGeneratingHtml()) {
+      super.doTextImpl(text);
+    }
+    record(ElementRecording.TEXT, null, text);
+  }
+
+  @Override
+  protected void onStartTrusted(String tagName, ElementBuilderBase<?> builder) {
+    super.onStartTrusted(tagName, builder);
+    record(ElementRecording.START, tagName, null);
+  }
+
+  /**
+   * Check if rendered markup can be appended directly, which is only the case once recording has
+   * been stopped, as the markup would not be recorded.
+   *
+   * @return true if recording has been stopped
+   */
+  @Override
+  boolean canAppendHtml() {
+    return recording == null;
+  }
+
+  /**
+   * Get the recorded operations.
+   *
+   * @return the recording, or null if recording has been stopped
+   */
+  ElementRecording getRecording() {
+    return recording;
+  }
+
+  /**
+   * Check if the operations are written to the HTML buffer as well as recorded.
+   *
+   * @return true by default
+   */
+  boolean isGeneratingHtml() {
+    return true;
+  }
+
+  /**
+   * Generate the HTML of the recorded operations in a new HTML builder, which is left in the same
+   * state as this builder, so that the rest of the HTML can be appended to it.
+   *
+   * @return the new builder
+   */
+  HtmlBuilderImpl replayRecording() {
+    HtmlBuilderImpl html = new HtmlBuilderImpl();
+    ElementBuilderBase<?> builder = null;
+    for (int i = 0; i < recording.size(); i++) {
+      int op = recording.getOp(i);
+      String name = recording.getName(i);
+      if (op == ElementRecording.START) {
+        // Start void elements like their typed builders do, so that they end the same way.
+        builder =
+            ElementRecording.isEndTagForbidden(name)
+                ? html.trustedStartEndTagForbidden(name)
+                : html.trustedStart(name);
+      } else {
+        builder = ElementRecording.replay(builder, op, name, recording.getValue(i));
+      }
+    }
+    if (html.isStyleOpen() && !isStyleOpen()) {
+      // The style attribute was ended explicitly, which is not recorded.
+      html.endStyle();
+    }
+    return html;
+  }
+
+  /** Stop recording until the builder is reset, releasing the operations recorded so far. */
+  void stopRecording() {
+    recording = null;
+  }
+
+  /** Record an operation unless recording has been stopped. */
+  private void record(int op, String name, String value) {
+    if (recording != null) {
+      recording.add(op, name, value);
+    }
+  }
+}
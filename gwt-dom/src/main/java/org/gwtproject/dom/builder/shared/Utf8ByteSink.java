@@ -0,0 +1,293 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.builder.shared;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gwtproject.core.shared.GwtIncompatible;
+
+/**
+ * An {@link Appendable} that encodes characters to UTF-8 as they are appended and writes the bytes
+ * to a {@link WritableByteChannel} or an {@link OutputStream} in fixed-size chunks.
+ *
+ * <p>Used as the sink of an {@link HtmlStreamingBuilderFactory}, the markup goes from the buffer of
+ * the builder straight to bytes, without creating a {@link String} of the page or of any part of
+ * it:
+ *
+ * <pre>
+ * try (Utf8ByteSink sink = Utf8ByteSink.to(response.getOutputStream())) {
+ *   HtmlStreamingBuilderFactory factory = new HtmlStreamingBuilderFactory(sink);
+ *   HtmlDivBuilder page = factory.createDivBuilder();
+ *   ...
+ *   page.flush();
+ * }
+ * </pre>
+ *
+ * <p>Chunks for channels are direct {@link ByteBuffer}s, which are pooled when they have the
+ * {@link #DEFAULT_CHUNK_SIZE}. Chunks for streams are heap buffers, so that their array can be
+ * written without copying. Characters that cannot be encoded, such as unpaired surrogates, are
+ * written as {@code '?'}, like {@link String#getBytes(java.nio.charset.Charset)} does.
+ *
+ * <p>A sink is not thread safe. {@link #close()} writes the remaining bytes and releases the
+ * chunk, but does not close the channel or stream.
+ */
+@GwtIncompatible
+public final class Utf8ByteSink implements Appendable, Closeable, Flushable {
+
+  /** The default number of bytes that are collected before they are written. */
+  public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+  /** The smallest chunk size, which holds the longest encoded character. */
+  private static final int MIN_CHUNK_SIZE = 4;
+
+  /** The largest number of direct buffers kept for reuse. */
+  private static final int MAX_POOLED_BUFFERS = 16;
+
+  private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+  private static final AtomicInteger POOL_SIZE = new AtomicInteger();
+
+  /**
+   * Create a sink that writes to a channel in chunks of the {@link #DEFAULT_CHUNK_SIZE}.
+   *
+   * @param channel the channel the bytes are written to
+   * @return the sink
+   */
+  public static Utf8ByteSink to(WritableByteChannel channel) {
+    return to(channel, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Create a sink that writes to a channel.
+   *
+   * @param channel the channel the bytes are written to
+   * @param chunkSize the number of bytes that are collected before they are written
+   * @return the sink
+   */
+  public static Utf8ByteSink to(WritableByteChannel channel, int chunkSize) {
+    if (channel == null) {
+      throw new NullPointerException("channel cannot be null");
+    }
+    checkChunkSize(chunkSize);
+    return new Utf8ByteSink(channel, null, acquireDirect(chunkSize));
+  }
+
+  /**
+   * Create a sink that writes to a stream in chunks of the {@link #DEFAULT_CHUNK_SIZE}.
+   *
+   * @param out the stream the bytes are written to
+   * @return the sink
+   */
+  public static Utf8ByteSink to(OutputStream out) {
+    return to(out, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Create a sink that writes to a stream.
+   *
+   * @param out the stream the bytes are written to
+   * @param chunkSize the number of bytes that are collected before they are written
+   * @return the sink
+   */
+  public static Utf8ByteSink to(OutputStream out, int chunkSize) {
+    if (out == null) {
+      throw new NullPointerException("out cannot be null");
+    }
+    checkChunkSize(chunkSize);
+    return new Utf8ByteSink(null, out, ByteBuffer.allocate(chunkSize));
+  }
+
+  /** Take a direct buffer from the pool, or allocate one. */
+  private static ByteBuffer acquireDirect(int chunkSize) {
+    if (chunkSize == DEFAULT_CHUNK_SIZE) {
+      ByteBuffer buffer = POOL.poll();
+      if (buffer != null) {
+        POOL_SIZE.decrementAndGet();
+        return buffer;
+      }
+    }
+    return ByteBuffer.allocateDirect(chunkSize);
+  }
+
+  /** Return a direct buffer to the pool, unless the pool is full. */
+  private static void releaseDirect(ByteBuffer buffer) {
+    if (POOL_SIZE.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+      POOL.offer(buffer);
+    } else {
+      POOL_SIZE.decrementAndGet();
+    }
+  }
+
+  private static void checkChunkSize(int chunkSize) {
+    if (chunkSize < MIN_CHUNK_SIZE) {
+      throw new IllegalArgumentException(
+          "chunkSize must be at least " + MIN_CHUNK_SIZE + ": " + chunkSize);
+    }
+  }
+
+  private final WritableByteChannel channel;
+  private final OutputStream out;
+  private ByteBuffer buffer;
+
+  /** A high surrogate whose low surrogate has not been appended yet, or 0. */
+  private char pendingHighSurrogate;
+
+  /** The number of bytes written to the channel or stream. */
+  private long byteCount;
+
+  private Utf8ByteSink(WritableByteChannel channel, OutputStream out, ByteBuffer buffer) {
+    this.channel = channel;
+    this.out = out;
+    this.buffer = buffer;
+  }
+
+  @Override
+  public Utf8ByteSink append(char c) throws IOException {
+    assertOpen();
+    encode(c);
+    return this;
+  }
+
+  @Override
+  public Utf8ByteSink append(CharSequence csq) throws IOException {
+    return append(csq == null ? "null" : csq, 0, csq == null ? 4 : csq.length());
+  }
+
+  @Override
+  public Utf8ByteSink append(CharSequence csq, int start, int end) throws IOException {
+    if (csq == null) {
+      return append("null", start, end);
+    }
+    assertOpen();
+    for (int i = start; i < end; i++) {
+      encode(csq.charAt(i));
+    }
+    return this;
+  }
+
+  /**
+   * Write the remaining bytes and release the chunk. An unpaired high surrogate at the end is
+   * written as {@code '?'}. Closing a closed sink has no effect.
+   *
+   * @throws IOException if the channel or stream fails
+   */
+  @Override
+  public void close() throws IOException {
+    if (buffer == null) {
+      return;
+    }
+    if (pendingHighSurrogate != 0) {
+      pendingHighSurrogate = 0;
+      buffer.put((byte) '?');
+    }
+    drain();
+    if (out != null) {
+      out.flush();
+    } else if (buffer.capacity() == DEFAULT_CHUNK_SIZE) {
+      releaseDirect(buffer);
+    }
+    buffer = null;
+  }
+
+  /**
+   * Write the collected bytes, and flush the stream if the sink writes to one. A high surrogate
+   * whose low surrogate has not been appended yet is kept.
+   *
+   * @throws IOException if the channel or stream fails
+   */
+  @Override
+  public void flush() throws IOException {
+    assertOpen();
+    drain();
+    if (out != null) {
+      out.flush();
+    }
+  }
+
+  /**
+   * Get the number of bytes written to the channel or stream so far, not counting the bytes that
+   * are still collected in the chunk.
+   *
+   * @return the number of bytes
+   */
+  public long getByteCount() {
+    return byteCount;
+  }
+
+  private void assertOpen() {
+    if (buffer == null) {
+      throw new IllegalStateException("The sink has been closed.");
+    }
+  }
+
+  /** Write the collected bytes and clear the chunk. */
+  private void drain() throws IOException {
+    buffer.flip();
+    int length = buffer.remaining();
+    if (out != null) {
+      out.write(buffer.array(), buffer.arrayOffset(), length);
+    } else {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+    byteCount += length;
+    buffer.clear();
+  }
+
+  /** Encode a single character, combining surrogate pairs. */
+  private void encode(char c) throws IOException {
+    if (buffer.remaining() < MIN_CHUNK_SIZE) {
+      drain();
+    }
+    if (pendingHighSurrogate != 0) {
+      char high = pendingHighSurrogate;
+      pendingHighSurrogate = 0;
+      if (Character.isLowSurrogate(c)) {
+        int codePoint = Character.toCodePoint(high, c);
+        buffer.put((byte) (0xf0 | (codePoint >> 18)));
+        buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+        buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+        buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+        return;
+      }
+      buffer.put((byte) '?');
+      // The current character still has to be encoded on its own.
+      if (buffer.remaining() < MIN_CHUNK_SIZE) {
+        drain();
+      }
+    }
+    if (c < 0x80) {
+      buffer.put((byte) c);
+    } else if (c < 0x800) {
+      buffer.put((byte) (0xc0 | (c >> 6)));
+      buffer.put((byte) (0x80 | (c & 0x3f)));
+    } else if (Character.isHighSurrogate(c)) {
+      pendingHighSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      buffer.put((byte) '?');
+    } else {
+      buffer.put((byte) (0xe0 | (c >> 12)));
+      buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+      buffer.put((byte) (0x80 | (c & 0x3f)));
+    }
+  }
+}
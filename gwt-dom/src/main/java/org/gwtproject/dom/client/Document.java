@@ -22,6 +22,7 @@ import jsinterop.annotations.JsProperty;
 import jsinterop.annotations.JsType;
 import jsinterop.base.Js;
 import jsinterop.base.JsPropertyMap;
+import org.gwtproject.safehtml.shared.SafeHtml;
 
 /**
  * A Document is the root of the HTML hierarchy and holds the entire content. Besides providing
@@ -367,6 +368,31 @@ public class Document extends Node {
         (Element) (Object) Js.<HTMLDocument>uncheckedCast(this).createElement(DListElement.TAG);
   }
 
+  /**
+   * Creates an empty document fragment.
+   *
+   * @return the newly created fragment
+   */
+  public final native DocumentFragment createDocumentFragment();
+
+  /**
+   * Creates a document fragment that holds the nodes parsed from an HTML string.
+   *
+   * <p>The HTML is parsed once as the content of a &lt;template&gt; element, so it can contain
+   * several top level elements, including elements such as table rows that are only valid inside a
+   * specific parent.
+   *
+   * @param html the HTML to parse
+   * @return the newly created fragment
+   */
+  @JsOverlay
+  public final DocumentFragment createDocumentFragment(SafeHtml html) {
+    HTMLTemplateElement template =
+        Js.uncheckedCast(Js.<HTMLDocument>uncheckedCast(this).createElement("template"));
+    template.innerHTML = html.asString();
+    return Js.uncheckedCast(template.content);
+  }
+
   /**
    * Creates a new element.
    *
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2019 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.dom.client;
+
+import jsinterop.annotations.JsOverlay;
+import jsinterop.annotations.JsPackage;
+import jsinterop.annotations.JsProperty;
+import jsinterop.annotations.JsType;
+
+/**
+ * A lightweight container for nodes that are not part of the document. When a fragment is inserted
+ * into the document, its children are moved in a single operation and the fragment is left empty.
+ */
+@JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+public class DocumentFragment extends Node {
+
+  /**
+   * Assert that the given {@link Node} is of type {@link Node#DOCUMENT_FRAGMENT_NODE} and
+   * automatically typecast it.
+   *
+   * @param node the node to assert is a document fragment
+   * @return the node, cast to a DocumentFragment
+   */
+  @JsOverlay
+  public static DocumentFragment as(Node node) {
+    assert node.getNodeType() == Node.DOCUMENT_FRAGMENT_NODE;
+    return (DocumentFragment) node;
+  }
+
+  protected DocumentFragment() {}
+
+  /**
+   * The number of child elements of this fragment.
+   *
+   * @return the number of child elements
+   */
+  @JsProperty
+  public final native int getChildElementCount();
+
+  /**
+   * The first child element of this fragment.
+   *
+   * @return the first child element, or null if there is none
+   */
+  @JsProperty
+  public final native Element getFirstElementChild();
+}
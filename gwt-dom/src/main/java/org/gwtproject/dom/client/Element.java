@@ -16,6 +16,7 @@
 package org.gwtproject.dom.client;
 
 import elemental2.core.Global;
+import elemental2.dom.DOMTokenList;
 import elemental2.dom.HTMLElement;
 import elemental2.dom.ViewCSS;
 import java.util.Objects;
@@ -120,6 +121,9 @@ public class Element extends Node {
    * Adds a name to this element's class property. If the name is already present, this method has
    * no effect.
    *
+   * <p>The name is added through the element's {@code classList}, so the class attribute is not
+   * read or rebuilt as a string. The name cannot contain whitespace.
+   *
    * @param className the class name to be added
    * @return <code>true</code> if this element did not already have the specified class name
    * @see #setClassName(String)
@@ -127,21 +131,12 @@ public class Element extends Node {
   @JsOverlay
   public final boolean addClassName(String className) {
     className = trimClassName(className);
-
-    // Get the current style string.
-    String oldClassName = getClassName();
-    int idx = indexOfName(oldClassName, className);
-
-    // Only add the style if it's not already present.
-    if (idx == -1) {
-      if (oldClassName.length() > 0) {
-        setClassName(oldClassName + " " + className);
-      } else {
-        setClassName(className);
-      }
-      return true;
+    DOMTokenList classList = getClassList();
+    if (classList.contains(className)) {
+      return false;
     }
-    return false;
+    classList.add(className);
+    return true;
   }
 
   /** Removes keyboard focus from this element. */
@@ -227,6 +222,16 @@ public class Element extends Node {
     return value != null ? value : "";
   }
 
+  /**
+   * Gets the names of all attributes that are set on this element, in document order.
+   *
+   * @return the attribute names
+   */
+  @JsOverlay
+  public final String[] getAttributeNames() {
+    return Js.<HTMLElement>uncheckedCast(this).getAttributeNames().asArray(new String[0]);
+  }
+
   /**
    * The class attribute of the element. This attribute has been renamed due to conflicts with the
    * "class" keyword exposed by many languages.
@@ -617,9 +622,7 @@ public class Element extends Node {
    */
   @JsOverlay
   public final boolean hasClassName(String className) {
-    className = trimClassName(className);
-    int idx = indexOfName(getClassName(), className);
-    return idx != -1;
+    return getClassList().contains(trimClassName(className));
   }
 
   /**
@@ -652,65 +655,50 @@ public class Element extends Node {
   @JsOverlay
   public final boolean removeClassName(String className) {
     className = trimClassName(className);
-
-    // Get the current style string.
-    String oldStyle = getClassName();
-    int idx = indexOfName(oldStyle, className);
-
-    // Don't try to remove the style if it's not there.
-    if (idx != -1) {
-      // Get the leading and trailing parts, without the removed name.
-      String begin = oldStyle.substring(0, idx).trim();
-      String end = oldStyle.substring(idx + className.length()).trim();
-
-      // Some contortions to make sure we don't leave extra spaces.
-      String newClassName;
-      if (begin.length() == 0) {
-        newClassName = end;
-      } else if (end.length() == 0) {
-        newClassName = begin;
-      } else {
-        newClassName = begin + " " + end;
-      }
-
-      setClassName(newClassName);
-      return true;
+    DOMTokenList classList = getClassList();
+    if (!classList.contains(className)) {
+      return false;
     }
-    return false;
+    classList.remove(className);
+    return true;
+  }
+
+  @JsOverlay
+  private static String trimClassName(String className) {
+    assert (className != null) : "Unexpectedly null class name";
+    className = className.trim();
+    assert !className.isEmpty() : "Unexpectedly empty class name";
+    return className;
   }
 
   /**
-   * Returns the index of the first occurrence of name in a space-separated list of names, or -1 if
-   * not found.
+   * Trims all class names of an array. The array is only copied if a name has to be trimmed.
    *
-   * @param nameList list of space delimited names
-   * @param name a non-empty string. Should be already trimmed.
+   * @param classNames the class names, or null
+   * @return the trimmed class names, or an empty array if classNames is null
    */
   @JsOverlay
-  static int indexOfName(String nameList, String name) {
-    int idx = nameList.indexOf(name);
-
-    // Calculate matching index.
-    while (idx != -1) {
-      if (idx == 0 || nameList.charAt(idx - 1) == ' ') {
-        int last = idx + name.length();
-        int lastPos = nameList.length();
-        if ((last == lastPos) || ((last < lastPos) && (nameList.charAt(last) == ' '))) {
-          break;
+  private static String[] trimClassNames(String[] classNames) {
+    if (classNames == null) {
+      return new String[0];
+    }
+    String[] trimmed = classNames;
+    for (int i = 0; i < classNames.length; i++) {
+      String className = trimClassName(classNames[i]);
+      if (className.length() != classNames[i].length()) {
+        if (trimmed == classNames) {
+          trimmed = classNames.clone();
         }
+        trimmed[i] = className;
       }
-      idx = nameList.indexOf(name, idx + 1);
     }
-
-    return idx;
+    return trimmed;
   }
 
+  /** Gets the live list of the names in this element's class property. */
   @JsOverlay
-  private static String trimClassName(String className) {
-    assert (className != null) : "Unexpectedly null class name";
-    className = className.trim();
-    assert !className.isEmpty() : "Unexpectedly empty class name";
-    return className;
+  private DOMTokenList getClassList() {
+    return Js.<HTMLElement>uncheckedCast(this).classList;
   }
 
   /**
@@ -720,10 +708,7 @@ public class Element extends Node {
    */
   @JsOverlay
   public final void toggleClassName(String className) {
-    boolean added = addClassName(className);
-    if (!added) {
-      removeClassName(className);
-    }
+    getClassList().toggle(trimClassName(className));
   }
 
   /**
@@ -734,8 +719,11 @@ public class Element extends Node {
    */
   @JsOverlay
   public final void replaceClassName(String oldClassName, String newClassName) {
-    removeClassName(oldClassName);
-    addClassName(newClassName);
+    oldClassName = trimClassName(oldClassName);
+    newClassName = trimClassName(newClassName);
+    DOMTokenList classList = getClassList();
+    classList.remove(oldClassName);
+    classList.add(newClassName);
   }
 
   /**
@@ -806,6 +794,32 @@ public class Element extends Node {
     Js.<HTMLElement>uncheckedCast(this).className = className == null ? "" : className;
   }
 
+  /**
+   * Removes and adds several names of this element's class property at once. The names are
+   * removed first, so a name that is in both arrays is present afterwards. Names that are already
+   * present are not added again, and names that are not present are ignored.
+   *
+   * <p>Each array is passed to the element's {@code classList} in a single call, so the class
+   * attribute is written at most twice, however many names change.
+   *
+   * @param add the class names to be added, or null
+   * @param remove the class names to be removed, or null
+   * @see #addClassName(String)
+   * @see #removeClassName(String)
+   */
+  @JsOverlay
+  public final void setClassNames(String[] add, String[] remove) {
+    String[] added = trimClassNames(add);
+    String[] removed = trimClassNames(remove);
+    DOMTokenList classList = getClassList();
+    if (removed.length > 0) {
+      classList.remove(removed);
+    }
+    if (added.length > 0) {
+      classList.add(added);
+    }
+  }
+
   /**
    * Specifies the base direction of directionally neutral text and the directionality of tables.
    *
@@ -44,6 +44,10 @@ public class Node extends JavaScriptObject {
   @JsProperty(namespace = JsPackage.GLOBAL, name = "Node.DOCUMENT_NODE")
   public static short DOCUMENT_NODE;
 
+  /** The node is a {@link DocumentFragment}. */
+  @JsProperty(namespace = JsPackage.GLOBAL, name = "Node.DOCUMENT_FRAGMENT_NODE")
+  public static short DOCUMENT_FRAGMENT_NODE;
+
   /**
    * Assert that the given object is a DOM node and automatically typecast it.
    *